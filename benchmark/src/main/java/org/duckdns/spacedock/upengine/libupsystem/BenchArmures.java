@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2017 ykonoclast
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.duckdns.spacedock.upengine.libupsystem;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * mesure des consultations des tables d'armures de UPReferenceArmures
+ *
+ * @author ykonoclast
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BenchArmures
+{
+
+    @Param(
+	    {
+		"0", "12", "40"
+	    })
+    public int m_points;
+
+    private UPReferenceArmures m_reference;
+    private Armure m_armure;
+    private int m_typeArme;
+
+    @Setup
+    public void preparer()
+    {
+	m_reference = UPReferenceArmures.getInstance();
+	m_armure = new Armure(m_points, 2);
+    }
+
+    @Benchmark
+    public int getBonusND()
+    {
+	m_typeArme = (m_typeArme + 1) % 5;
+	return m_reference.getBonusND(m_points, m_typeArme, 2);
+    }
+
+    @Benchmark
+    public int getRedDegats()
+    {
+	m_typeArme = (m_typeArme + 1) % 5;
+	return m_reference.getRedDegats(m_points, m_typeArme, 2);
+    }
+
+    @Benchmark
+    public int armureGetRedDegats()
+    {
+	m_typeArme = (m_typeArme + 1) % 5;
+	return m_armure.getRedDegats(m_typeArme);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2017 ykonoclast
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.duckdns.spacedock.upengine.libupsystem;
+
+import java.util.concurrent.TimeUnit;
+import org.duckdns.spacedock.upengine.libupsystem.Arme.Degats;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * mesure des chemins chauds du combat : attaques au corps à corps et à
+ * distance, puis application des dégâts jusqu'aux jauges via
+ * CoupleJauges.recevoirDegats
+ *
+ * @author ykonoclast
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BenchCombat
+{
+
+    private Perso m_attaquant;
+    private Perso m_cible;
+    private ArmeCaC m_sabre;
+    private ArmeDist m_fusil;
+    private Armure m_armure;
+    private Degats m_degats;
+
+    @Setup
+    public void preparer()
+    {
+	m_attaquant = new Perso(4);
+	m_cible = new Perso(4);
+	m_sabre = new ArmeCaC(8, Arme.QualiteArme.moyenne, Arme.EquilibrageArme.normal);
+	m_fusil = new ArmeDist(44, Arme.QualiteArme.moyenne, Arme.EquilibrageArme.normal);
+	m_armure = new Armure(12, 2);
+	m_degats = new Degats(25, 0);
+	m_attaquant.genInit();
+    }
+
+    /**
+     *
+     * @return la phase de la prochaine action de l'attaquant, régénère son
+     * initiative si son tour est terminé
+     */
+    private int prochainePhase()
+    {
+	if (m_attaquant.getPhaseProchaineAction() == 0)
+	{
+	    m_attaquant.genInit();
+	}
+	return m_attaquant.getPhaseProchaineAction();
+    }
+
+    @Benchmark
+    public RollGenerator.RollResult attaquerCaC()
+    {
+	return m_attaquant.attaquerCaC(prochainePhase(), 25, m_sabre);
+    }
+
+    @Benchmark
+    public RollGenerator.RollResult attaquerDist()
+    {
+	m_fusil.recharger(1);
+	return m_attaquant.attaquerDist(prochainePhase(), 25, 100, 1, m_fusil);
+    }
+
+    @Benchmark
+    public Degats genererDegats()
+    {
+	return m_attaquant.genererDegats(2, m_sabre);
+    }
+
+    @Benchmark
+    public boolean etreBlesse()
+    {
+	m_cible.etreBlesse(m_degats, m_armure);
+	boolean elimine = m_cible.getEtatVital().isElimine();
+	if (elimine)
+	{//on remet la cible sur pied pour rester en régime permanent, setTrait réinitialise les jauges
+	    m_cible.setTrait(GroupeTraits.Trait.PHYSIQUE, m_cible.getTrait(GroupeTraits.Trait.PHYSIQUE));
+	}
+	return elimine;
+    }
+}
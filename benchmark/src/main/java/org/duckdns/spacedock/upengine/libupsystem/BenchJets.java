@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2017 ykonoclast
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.duckdns.spacedock.upengine.libupsystem;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * mesure du coeur du système de jeu : les jets XgY de RollGenerator sur une
+ * grille de tailles de jets, avec et sans relance des dix
+ *
+ * @author ykonoclast
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BenchJets
+{
+
+    @Param(
+	    {
+		"1", "3", "5", "8", "12"
+	    })
+    public int m_nbLances;
+    @Param(
+	    {
+		"1", "3", "5"
+	    })
+    public int m_nbGardes;
+    @Param(
+	    {
+		"false", "true"
+	    })
+    public boolean m_nonRelanceDix;
+
+    /**
+     * taille des lots de jets mesurés par effectuerJets
+     */
+    private static final int TAILLE_LOT = 1000;
+
+    private RollGenerator m_generateur;
+    private int[] m_scores;
+    private boolean[] m_reussites;
+    private int[] m_increments;
+
+    @Setup
+    public void preparer()
+    {
+	m_generateur = RollGenerator.getInstance();
+	m_scores = new int[TAILLE_LOT];
+	m_reussites = new boolean[TAILLE_LOT];
+	m_increments = new int[TAILLE_LOT];
+    }
+
+    @Benchmark
+    public int lancerGarder()
+    {
+	return m_generateur.lancerGarder(m_nbLances, m_nbGardes, m_nonRelanceDix);
+    }
+
+    @Benchmark
+    public RollGenerator.RollResult effectuerJet()
+    {
+	return m_generateur.effectuerJet(15, m_nbLances, m_nbGardes, m_nonRelanceDix, 0);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int effectuerJetsParLot()
+    {
+	return m_generateur.effectuerJets(TAILLE_LOT, 15, m_nbLances, m_nbGardes, m_nonRelanceDix, 0, m_scores, m_reussites, m_increments);
+    }
+
+    @Benchmark
+    public double probaReussiteExacte()
+    {//après le premier appel la distribution est mémorisée : on mesure le chemin rapide
+	return RollDistribution.getInstance().getProbaReussite(15, m_nbLances, m_nbGardes, m_nonRelanceDix, 0);
+    }
+}
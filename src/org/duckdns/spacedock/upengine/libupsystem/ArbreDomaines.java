@@ -17,12 +17,29 @@
 package org.duckdns.spacedock.upengine.libupsystem;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import org.duckdns.spacedock.commonutils.ErrorHandler;
+import org.duckdns.spacedock.commonutils.PropertiesHandler;
 
 /**
  * Classe représentant l'ensemble des domaines et de leurs compétences (et les
  * contenant). Elle les construit pour un perso (les domaines et compétences ne
  * devraient jamais être manipulés en dehors de cette classe).
  *
+ * Les copies sont structurelles : un arbre et ses copies partagent leurs
+ * domaines (et ceux-ci leurs compétences) tant qu'ils ne sont pas modifiés.
+ * Un domaine partagé n'est jamais modifié en place, l'arbre qui veut le
+ * modifier en prend d'abord une copie, elle-même partageant les compétences
+ * non touchées : seul le chemin modifié est recopié. Un arbre figé peut être
+ * partagé entre threads (gabarits de PNJ), il n'est plus modifiable et ses
+ * copies ne le modifient pas.
+ *
+ * Les rangs sont en outre tenus dans une matrice compacte d'entiers (le rang
+ * de chaque domaine suivi de ceux de ses compétences, à un décalage
+ * précalculé par domaine) : les lectures de rangs et les jets de compétence
+ * ne parcourent pas les objets. Les domaines restent les garants de la
+ * validité des rangs et détiennent les spécialités.
+ *
  * @author ykonoclast
  */
 public class ArbreDomaines
@@ -31,7 +48,31 @@ public class ArbreDomaines
     /**
      * liste des domaines de l'arbre
      */
-    private final ArrayList<Domaine> m_listDomaines = new ArrayList<>();
+    private final ArrayList<Domaine> m_listDomaines;
+    /**
+     * vrai pour chaque domaine partagé avec un autre arbre, qui doit donc être
+     * recopié avant toute modification
+     */
+    private final boolean[] m_domainesPartages;
+    /**
+     * vrai si l'arbre ne peut plus être modifié
+     */
+    private final boolean m_fige;
+    /**
+     * début dans m_rangs des rangs de chaque domaine (le rang du domaine puis
+     * ceux de ses compétences), la dernière case marque la fin du tableau.
+     * Jamais modifié, donc partagé entre copies
+     */
+    private final int[] m_debutsDomaines;
+    /**
+     * matrice compacte des rangs des domaines et compétences
+     */
+    private int[] m_rangs;
+    /**
+     * vrai si m_rangs est partagé avec un autre arbre et doit être recopié
+     * avant toute modification
+     */
+    private boolean m_rangsPartages;
 
     /**
      * constructeur d'un arbre de domaines et compétences. Celui-ci est
@@ -39,11 +80,89 @@ public class ArbreDomaines
      */
     public ArbreDomaines()
     {
-	int nbDomaines = UPReferenceSysteme.getInstance().getListDomaines().size();
+	this(UPReferenceSysteme.getInstance());
+    }
+
+    /**
+     * constructeur d'un arbre aux caracs minimales dont toute la structure est
+     * tirée d'une même référence, même si elle est rechargée entre temps
+     *
+     * @param p_reference
+     */
+    ArbreDomaines(UPReferenceSysteme p_reference)
+    {
+	int nbDomaines = p_reference.getNbDomaines();
+	m_listDomaines = new ArrayList<>(nbDomaines);
+	for (int i = 0; i < nbDomaines; ++i)
+	{
+	    m_listDomaines.add(new Domaine(i, 1, p_reference));
+	}
+	m_domainesPartages = new boolean[nbDomaines];
+	m_fige = false;
+
+	//construction de la matrice des rangs, aux rangs initiaux des domaines (1) et des compétences (0)
+	m_debutsDomaines = new int[nbDomaines + 1];
+	for (int i = 0; i < nbDomaines; ++i)
+	{
+	    m_debutsDomaines[i + 1] = m_debutsDomaines[i] + 1 + m_listDomaines.get(i).getNbComp();
+	}
+	m_rangs = new int[m_debutsDomaines[nbDomaines]];
 	for (int i = 0; i < nbDomaines; ++i)
 	{
-	    m_listDomaines.add(new Domaine(i, 1));
+	    m_rangs[m_debutsDomaines[i]] = 1;
 	}
+	m_rangsPartages = false;
+    }
+
+    /**
+     * constructeur de copie structurelle : tous les domaines sont partagés
+     * avec le modèle
+     *
+     * @param p_modele
+     * @param p_fige vrai si la copie doit être figée
+     */
+    private ArbreDomaines(ArbreDomaines p_modele, boolean p_fige)
+    {
+	m_listDomaines = new ArrayList<>(p_modele.m_listDomaines);
+	m_domainesPartages = new boolean[m_listDomaines.size()];
+	Arrays.fill(m_domainesPartages, true);
+	m_fige = p_fige;
+	m_debutsDomaines = p_modele.m_debutsDomaines;
+	m_rangs = p_modele.m_rangs;
+	m_rangsPartages = true;
+	if (!p_modele.m_fige)
+	{//le modèle ne doit plus modifier en place les domaines et rangs désormais partagés (un arbre figé ne les modifie de toute façon jamais)
+	    Arrays.fill(p_modele.m_domainesPartages, true);
+	    p_modele.m_rangsPartages = true;
+	}
+    }
+
+    /**
+     *
+     * @return une copie modifiable de cet arbre, partageant ses domaines
+     */
+    ArbreDomaines copier()
+    {
+	return new ArbreDomaines(this, false);
+    }
+
+    /**
+     *
+     * @return une version figée de cet arbre, partageable entre plusieurs
+     * personnages (lui-même s'il est déjà figé)
+     */
+    ArbreDomaines figer()
+    {
+	return m_fige ? this : new ArbreDomaines(this, true);
+    }
+
+    /**
+     *
+     * @return vrai si l'arbre ne peut plus être modifié
+     */
+    boolean isFige()
+    {
+	return m_fige;
     }
 
     /**
@@ -54,7 +173,17 @@ public class ArbreDomaines
      */
     public int getRangComp(int p_indDomaine, int p_indComp)
     {
-	return m_listDomaines.get(p_indDomaine).getRangComp(p_indComp);
+	int result;
+	int debut = m_debutsDomaines[p_indDomaine];
+	if (p_indComp >= 0 && p_indComp < m_debutsDomaines[p_indDomaine + 1] - debut - 1)
+	{
+	    result = m_rangs[debut + 1 + p_indComp];
+	}
+	else
+	{//indice hors du domaine : c'est celui-ci qui signale l'erreur
+	    result = m_listDomaines.get(p_indDomaine).getRangComp(p_indComp);
+	}
+	return result;
     }
 
     /**
@@ -64,7 +193,7 @@ public class ArbreDomaines
      */
     public int getRangDomaine(int p_indDomaine)
     {
-	return m_listDomaines.get(p_indDomaine).getRang();
+	return m_rangs[m_debutsDomaines[p_indDomaine]];
     }
 
     /**
@@ -75,7 +204,12 @@ public class ArbreDomaines
      */
     public void setRangComp(int p_indDomaine, int p_indComp, int p_rang)
     {
-	m_listDomaines.get(p_indDomaine).setRangComp(p_indComp, p_rang);
+	getDomaineModifiable(p_indDomaine).setRangComp(p_indComp, p_rang);//le domaine vérifie le rang
+	int debut = m_debutsDomaines[p_indDomaine];
+	if (p_indComp < m_debutsDomaines[p_indDomaine + 1] - debut - 1)
+	{
+	    getRangsModifiables()[debut + 1 + p_indComp] = p_rang;
+	}
     }
 
     /**
@@ -85,7 +219,8 @@ public class ArbreDomaines
      */
     public void setRangDomaine(int p_indDomaine, int p_rang)
     {
-	m_listDomaines.get(p_indDomaine).setRang(p_rang);
+	getDomaineModifiable(p_indDomaine).setRang(p_rang);//le domaine vérifie le rang
+	getRangsModifiables()[m_debutsDomaines[p_indDomaine]] = p_rang;
     }
 
     /**
@@ -96,7 +231,7 @@ public class ArbreDomaines
      */
     void addSpecialite(int p_indDomaine, int p_indComp, String p_specialite)
     {
-	m_listDomaines.get(p_indDomaine).addSpecialite(p_indComp, p_specialite);
+	getDomaineModifiable(p_indDomaine).addSpecialite(p_indComp, p_specialite);
     }
 
     /**
@@ -113,7 +248,17 @@ public class ArbreDomaines
      */
     RollGenerator.RollResult effectuerJetComp(int p_rangTrait, int p_indDomaine, int p_indComp, int p_nd, int p_modifNbDesLances, int p_modifNbDesGardes, int p_modifScore, boolean p_isSonne)
     {
-	return m_listDomaines.get(p_indDomaine).effectuerJetComp(p_rangTrait, p_indComp, p_nd, p_modifNbDesLances, p_modifNbDesGardes, p_modifScore, p_isSonne);
+	RollGenerator.RollResult result;
+	int debut = m_debutsDomaines[p_indDomaine];
+	if (p_indComp >= 0 && p_indComp < m_debutsDomaines[p_indDomaine + 1] - debut - 1)
+	{//chemin rapide : les rangs sont lus dans la matrice
+	    result = Domaine.effectuerJetRangs(m_rangs[debut], m_rangs[debut + 1 + p_indComp], p_rangTrait, p_indComp, p_nd, p_modifNbDesLances, p_modifNbDesGardes, p_modifScore, p_isSonne);
+	}
+	else
+	{//indice hors du domaine : c'est celui-ci qui signale l'erreur
+	    result = m_listDomaines.get(p_indDomaine).effectuerJetComp(p_rangTrait, p_indComp, p_nd, p_modifNbDesLances, p_modifNbDesGardes, p_modifScore, p_isSonne);
+	}
+	return result;
     }
 
     /**
@@ -135,6 +280,42 @@ public class ArbreDomaines
      */
     void removeSpecialite(int p_indDomaine, int p_indComp, int p_indiceSpe)
     {
-	m_listDomaines.get(p_indDomaine).removeSpecialite(p_indComp, p_indiceSpe);
+	getDomaineModifiable(p_indDomaine).removeSpecialite(p_indComp, p_indiceSpe);
+    }
+
+    /**
+     *
+     * @param p_indDomaine
+     * @return le domaine visé, recopié au préalable s'il était partagé
+     */
+    private Domaine getDomaineModifiable(int p_indDomaine)
+    {
+	if (m_fige)
+	{
+	    ErrorHandler.mauvaiseMethode(PropertiesHandler.getInstance("libupsystem").getString("dom") + ":" + p_indDomaine);
+	}
+	Domaine result = m_listDomaines.get(p_indDomaine);
+	if (m_domainesPartages[p_indDomaine])
+	{
+	    result = new Domaine(result);
+	    m_listDomaines.set(p_indDomaine, result);
+	    m_domainesPartages[p_indDomaine] = false;
+	}
+	return result;
+    }
+
+    /**
+     *
+     * @return la matrice des rangs, recopiée au préalable si elle était
+     * partagée
+     */
+    private int[] getRangsModifiables()
+    {
+	if (m_rangsPartages)
+	{
+	    m_rangs = m_rangs.clone();
+	    m_rangsPartages = false;
+	}
+	return m_rangs;
     }
 }
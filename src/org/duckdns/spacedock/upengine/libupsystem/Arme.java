@@ -16,9 +16,6 @@
  */
 package org.duckdns.spacedock.upengine.libupsystem;
 
-import org.duckdns.spacedock.commonutils.ErrorHandler;
-import org.duckdns.spacedock.commonutils.PropertiesHandler;
-
 /**
  * Classe représentant une arme. Elle est abstraite car l'on ne doit pouvoir
  * instancier que ses dérivées qui sont porteuses du code signifiant pour le CaC
@@ -30,44 +27,31 @@ public abstract class Arme
 {
 
     /**
-     * Si l'arme nécessite deux mains pour être maniée
-     */
-    private final boolean m_arme2Mains;
-    /**
-     * le bonus apporté à l'initiative totale
-     */
-    private int m_bonusInit;
-    /**
-     * la catégorie d'arme (permet de définir les compétences à utiliser). Pour
-     * les armes de corps à corps on définit l'attaque à 2*rang et la parade à
-     * 2*rang+1, les armes à distances ont leur attaque à rang tout simplement
-     */
-    private final int m_categorie;
-    /**
-     * la VD de l'arme
+     * les caractéristiques de référence de l'arme, partagées par toutes les
+     * armes de même indice
      */
-    private int m_vd;
+    private final PrototypeArme m_prototype;
     /**
-     * le malus donné par l'arme à l'attaque
+     * cache partagé des noms d'armes, par combinaison d'indice, de qualité et
+     * d'équilibrage
      */
-    private final int m_malusAttaque;
+    private static final CacheLibelles m_cacheNoms = new CacheLibelles();
     /**
-     * le mode d'attaque de l'arme (corps à corps ou distance)
+     * la qualité de l'arme
      */
-    private final int m_mode;
+    private final QualiteArme m_qualite;
     /**
-     * le nom de l'arme
+     * l'équilibrage de l'arme (ignoré pour les armes de maître)
      */
-    private final String m_nom;
+    private final EquilibrageArme m_equilibrage;
     /**
-     * le physique minimal pour manier l'arme.
+     * la référence système dont est issue l'arme
      */
-    private final int m_physMin;
+    private final UPReferenceSysteme m_referenceSys;
     /**
-     * le type de l'arme : simple, perce-amure, pénétrante, perce-blindage ou
-     * energétique, respectivement de 0 à 4
+     * le nom de l'arme, construit à la première demande
      */
-    private final int m_typeArme;
+    private String m_nom;
 
     /**
      * constructeur d'arme de corps à corps à parti de la référence UP!
@@ -79,68 +63,11 @@ public abstract class Arme
      */
     public Arme(int p_indice, QualiteArme p_qualite, EquilibrageArme p_equilibrage)
     {
-	UPReferenceArmes referenceArm = UPReferenceArmes.getInstance();
-	UPReferenceSysteme referenceSys = UPReferenceSysteme.getInstance();
-
-	String nom = referenceArm.getLblArme(p_indice);
-
-	nom = nom.concat(" ");
-
-	//récupération des éléments liés à la qualité et l'équilibrage de l'arme
-	if (p_qualite == QualiteArme.maitre)//traitement spécial des armes de maître
-	{
-	    nom = nom.concat((String) referenceArm.getListQualiteArme().get(QualiteArme.maitre));
-	}
-	else
-	{
-	    nom = nom.concat(referenceSys.getCollectionLibelles().liaison);
-	    nom = nom.concat(" ");
-	    nom = nom.concat(referenceSys.getCollectionLibelles().qualite);
-	    nom = nom.concat(" ");
-
-	    switch (p_qualite)
-	    {
-		case inferieure:
-		    nom = nom.concat((String) referenceArm.getListQualiteArme().get(QualiteArme.inferieure));
-		    break;
-		case moyenne:
-		    nom = nom.concat((String) referenceArm.getListQualiteArme().get(QualiteArme.moyenne));
-		    break;
-		case superieure:
-		    nom = nom.concat((String) referenceArm.getListQualiteArme().get(QualiteArme.superieure));
-		    break;
-	    }
-
-	    nom = nom.concat(" ");
-	    nom = nom.concat(referenceSys.getCollectionLibelles().addition);
-	    nom = nom.concat(" ");
-	    nom = nom.concat(referenceSys.getCollectionLibelles().equilibrage);
-	    nom = nom.concat(" ");
-
-	    switch (p_equilibrage)
-	    {
-		case mauvais:
-		    nom = nom.concat((String) referenceArm.getListEquilibrage().get(EquilibrageArme.mauvais));
-		    break;
-		case normal:
-		    nom = nom.concat((String) referenceArm.getListEquilibrage().get(EquilibrageArme.normal));
-		    break;
-		case bon:
-		    nom = nom.concat((String) referenceArm.getListEquilibrage().get(EquilibrageArme.bon));
-		    break;
-	    }
-	}
-
-	//récupération et construction des caractéristiques de l'arme
-	m_vd = referenceArm.getVDArme(p_indice);
-	m_bonusInit = referenceArm.getBonusInitArme(p_indice);
-	m_typeArme = referenceArm.getTypeArme(p_indice);
-	m_malusAttaque = referenceArm.getMalusAttaqueArme(p_indice);
-	m_physMin = referenceArm.getPhysMinArme(p_indice);
-	m_nom = nom;
-	m_categorie = referenceArm.getCategorieArme(p_indice);
-	m_arme2Mains = referenceArm.isArme2Mains(p_indice);
-	m_mode = referenceArm.getModArme(p_indice);
+	//les caractéristiques sont lues dans le prototype partagé de l'indice, le nom n'est mis en forme qu'à la première demande
+	m_prototype = PrototypeArme.getPrototype(UPReferenceArmes.getInstance(), p_indice);
+	m_referenceSys = UPReferenceSysteme.getInstance();
+	m_qualite = p_qualite;
+	m_equilibrage = p_equilibrage;
     }
 
     /**
@@ -161,7 +88,7 @@ public abstract class Arme
 	}
 	else
 	{
-	    ErrorHandler.paramAberrant(PropertiesHandler.getInstance("libupsystem").getString("increments") + ":" + p_incr);
+	    Validation.paramAberrant("increments", p_incr);
 	}
 	return result;
     }
@@ -170,48 +97,127 @@ public abstract class Arme
 
     public int getBonusInit()
     {
-	return m_bonusInit;
+	return m_prototype.getBonusInit();
     }
 
     public int getCategorie()
     {
-	return m_categorie;
+	return m_prototype.getCategorie();
     }
 
     public int getVD()
     {
-	return m_vd;
+	return m_prototype.getVD();
     }
 
     public int getMalusAttaque()
     {
-	return m_malusAttaque;
+	return m_prototype.getMalusAttaque();
     }
 
     public int getMode()
     {
-	return m_mode;
+	return m_prototype.getMode();
     }
 
     public boolean isArme2Mains()
     {
-	return m_arme2Mains;
+	return m_prototype.isArme2Mains();
     }
 
     public int getTypeArme()
     {
-	return m_typeArme;
+	return m_prototype.getTypeArme();
     }
 
     public int getphysMin()
     {
-	return m_physMin;
+	return m_prototype.getPhysMin();
+    }
+
+    /**
+     * @return le prototype partagé de l'arme
+     */
+    PrototypeArme getPrototype()
+    {
+	return m_prototype;
     }
 
     @Override
     public String toString()
     {
-	return m_nom;
+	String result = m_nom;
+	if (result == null)
+	{
+	    //l'équilibrage n'intervient pas dans le nom des armes de maître
+	    long cle = (long) m_prototype.getIndice() * 16 + m_qualite.ordinal() * 4 + ((m_qualite == QualiteArme.maitre) ? 0 : m_equilibrage.ordinal());
+	    result = m_cacheNoms.getLibelle(m_prototype.getReference(), m_referenceSys, cle);
+	    if (result == null)
+	    {
+		result = m_cacheNoms.interner(m_prototype.getReference(), m_referenceSys, cle, construireNom());
+	    }
+	    m_nom = result;
+	}
+	return result;
+    }
+
+    /**
+     * met en forme le nom de l'arme à partir de ses références
+     *
+     * @return
+     */
+    private String construireNom()
+    {
+	UPReferenceArmes referenceArm = m_prototype.getReference();
+	String nom = referenceArm.getLblArme(m_prototype.getIndice());
+
+	nom = nom.concat(" ");
+
+	//récupération des éléments liés à la qualité et l'équilibrage de l'arme
+	if (m_qualite == QualiteArme.maitre)//traitement spécial des armes de maître
+	{
+	    nom = nom.concat((String) referenceArm.getListQualiteArme().get(QualiteArme.maitre));
+	}
+	else
+	{
+	    nom = nom.concat(m_referenceSys.getCollectionLibelles().liaison);
+	    nom = nom.concat(" ");
+	    nom = nom.concat(m_referenceSys.getCollectionLibelles().qualite);
+	    nom = nom.concat(" ");
+
+	    switch (m_qualite)
+	    {
+		case inferieure:
+		    nom = nom.concat((String) referenceArm.getListQualiteArme().get(QualiteArme.inferieure));
+		    break;
+		case moyenne:
+		    nom = nom.concat((String) referenceArm.getListQualiteArme().get(QualiteArme.moyenne));
+		    break;
+		case superieure:
+		    nom = nom.concat((String) referenceArm.getListQualiteArme().get(QualiteArme.superieure));
+		    break;
+	    }
+
+	    nom = nom.concat(" ");
+	    nom = nom.concat(m_referenceSys.getCollectionLibelles().addition);
+	    nom = nom.concat(" ");
+	    nom = nom.concat(m_referenceSys.getCollectionLibelles().equilibrage);
+	    nom = nom.concat(" ");
+
+	    switch (m_equilibrage)
+	    {
+		case mauvais:
+		    nom = nom.concat((String) referenceArm.getListEquilibrage().get(EquilibrageArme.mauvais));
+		    break;
+		case normal:
+		    nom = nom.concat((String) referenceArm.getListEquilibrage().get(EquilibrageArme.normal));
+		    break;
+		case bon:
+		    nom = nom.concat((String) referenceArm.getListEquilibrage().get(EquilibrageArme.bon));
+		    break;
+	    }
+	}
+	return nom;
     }
 
     /**
@@ -261,7 +267,7 @@ public abstract class Arme
 	    }
 	    else
 	    {
-		ErrorHandler.paramAberrant(PropertiesHandler.getInstance("libupsystem").getString("degats") + ":" + p_quantite + " " + PropertiesHandler.getInstance("libupsystem").getString("type") + ":" + p_typeArme);
+		Validation.paramAberrant("degats", p_quantite, "type", p_typeArme);
 	    }
 	}
 
@@ -16,8 +16,7 @@
  */
 package org.duckdns.spacedock.upengine.libupsystem;
 
-import org.duckdns.spacedock.commonutils.ErrorHandler;
-import org.duckdns.spacedock.commonutils.PropertiesHandler;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  *
@@ -27,9 +26,37 @@ public class ArmeDist extends Arme
 {
 
     /**
-     * le nombre de coups présents dans l'arme au départ
+     * nombre maximal de coups tirés en une seule attaque
      */
-    private int m_magasinCourant;
+    static final int NB_COUPS_MAX = 20;
+    /**
+     * modificateurs extrêmes au jet pour toucher : qualité inférieure à portée
+     * longue et arme de maître à portée courte
+     */
+    private static final int MOD_JET_MIN = -8;
+    private static final int MOD_JET_MAX = 6;
+    /**
+     * rapport partagé de tous les échecs automatiques
+     */
+    static final DistReport ECHEC_AUTO = new DistReport(0, 0, 0, true);
+    /**
+     * rapport partagé des échecs automatiques faute de munitions suffisantes
+     * dans le magasin
+     */
+    static final DistReport ECHEC_MUNITIONS = new DistReport(0, 0, 0, true);
+    /**
+     * rapports partagés de toutes les attaques possibles, indexés par
+     * modificateur au jet (décalé de MOD_JET_MIN) puis par nombre de coups :
+     * les rapports étant immuables, aucune attaque n'en alloue
+     */
+    private static final DistReport[][] m_rapports = construireRapports();
+
+    /**
+     * le nombre de coups présents dans l'arme, tenu sans verrou par
+     * compare-and-set afin que plusieurs threads puissent puiser dans une même
+     * arme
+     */
+    private final AtomicInteger m_magasinCourant = new AtomicInteger(0);//par défaut l'arme n'est pas chargée
     /**
      * la capacité du magasin de l'arme
      */
@@ -46,6 +73,18 @@ public class ArmeDist extends Arme
      * le modificateur aux jets pour toucher du fait de la qualité
      */
     private final int m_modifJet;
+    /**
+     * la distance au delà de laquelle le tir est à portée longue
+     */
+    private final int m_seuilPorteeLongue;
+    /**
+     * rapports d'attaque à portée courte de cette arme, par nombre de coups
+     */
+    private final DistReport[] m_rapportsPorteeCourte;
+    /**
+     * rapports d'attaque à portée longue de cette arme, par nombre de coups
+     */
+    private final DistReport[] m_rapportsPorteeLongue;
 
     /**
      * constructeur identique à celui de la superclasse, celle-ci emploie la
@@ -60,8 +99,8 @@ public class ArmeDist extends Arme
     public ArmeDist(int p_indice, QualiteArme p_qualite, EquilibrageArme p_equilibrage)
     {
 	super(p_indice, p_qualite, p_equilibrage);
-	UPReferenceArmes reference = UPReferenceArmes.getInstance();
-	int porteeEffective = reference.getPorteeArme(p_indice);
+	PrototypeArme prototype = getPrototype();
+	int porteeEffective = prototype.getPortee();
 
 	if (p_qualite == QualiteArme.maitre)//traitement spécial des armes de maître
 	{
@@ -95,9 +134,11 @@ public class ArmeDist extends Arme
 	    }
 	}
 	m_portee = porteeEffective;//ainsi que modifiée par l'équilibrage et la qualité
-	m_nbActionsRecharge = reference.getNbActionsRechargeArme(p_indice);
-	m_magasinMax = reference.getMagasinArme(p_indice);
-	m_magasinCourant = 0;//par défaut l'arme n'est pas chargée
+	m_seuilPorteeLongue = (int) Math.round((double) m_portee / (double) 2);
+	m_rapportsPorteeCourte = m_rapports[m_modifJet - MOD_JET_MIN];
+	m_rapportsPorteeLongue = m_rapports[m_modifJet - 5 - MOD_JET_MIN];
+	m_nbActionsRecharge = prototype.getNbActionsRecharge();
+	m_magasinMax = prototype.getMagasin();
     }
 
     /**
@@ -122,14 +163,35 @@ public class ArmeDist extends Arme
      */
     public void consommerMun(int p_nbMun)
     {
-	if (p_nbMun > 0 && p_nbMun <= m_magasinCourant)
+	if (!reserverMun(p_nbMun))
 	{
-	    m_magasinCourant -= p_nbMun;
+	    Validation.paramAberrant("nbCoups", p_nbMun, "muncourantes", m_magasinCourant.get());
 	}
-	else
+    }
+
+    /**
+     * retire atomiquement p_nbMun coups du magasin s'ils y sont tous présents,
+     * sans lever d'exception : soit tous les coups sont réservés, soit aucun
+     *
+     * @param p_nbMun
+     * @return si les coups ont pu être réservés
+     */
+    public boolean reserverMun(int p_nbMun)
+    {
+	boolean result = false;
+	if (p_nbMun > 0)
 	{
-	    ErrorHandler.paramAberrant(PropertiesHandler.getInstance("libupsystem").getString("nbCoups") + ":" + p_nbMun + " " + PropertiesHandler.getInstance("libupsystem").getString("muncourantes") + ":" + m_magasinCourant);
+	    int courant = m_magasinCourant.get();
+	    while (p_nbMun <= courant && !result)
+	    {
+		result = m_magasinCourant.compareAndSet(courant, courant - p_nbMun);
+		if (!result)
+		{//un autre thread a modifié le magasin entre temps : on recommence avec la nouvelle valeur
+		    courant = m_magasinCourant.get();
+		}
+	    }
 	}
+	return result;
     }
 
     /**
@@ -147,58 +209,69 @@ public class ArmeDist extends Arme
      */
     DistReport verifPreAttaque(int p_distance, int p_nbCoups)
     {
-	DistReport result = new DistReport(0, 0, 0, true);//échec auto par défaut
-	int modJetFinal = m_modifJet;
-	if (p_distance >= 0 && p_nbCoups > 0 && p_nbCoups <= 20)
+	DistReport result = ECHEC_AUTO;//échec auto par défaut
+	if (p_distance >= 0 && p_nbCoups > 0 && p_nbCoups <= NB_COUPS_MAX)
 	{
-	    consommerMun(p_nbCoups);//on consomme les coups, une exception sera levée si il n'y a pas assez de munitions, le code appelant devrait vérifier systématiquement cela
-	    if (p_distance <= getPortee())//échec auto si distance > portée
+	    boolean aPortee = p_distance <= m_portee;//échec auto si distance > portée
+	    if (aPortee && p_nbCoups > 1 && getCategorie() != 4)//rafales acceptées seulement pour cette catégorie, sinon lever une exception avant toute consommation
+	    {
+		Validation.paramAberrant("nbCoups", p_nbCoups);
+	    }
+	    if (!reserverMun(p_nbCoups))
+	    {//le magasin ne contient pas assez de coups (éventuellement vidé par un autre thread) : l'attaque échoue sans rien consommer
+		result = ECHEC_MUNITIONS;
+	    }
+	    else if (aPortee)
+	    {
+		//les bonus de rafale et le malus de portée longue sont déjà intégrés aux rapports précalculés
+		result = (p_distance > m_seuilPorteeLongue) ? m_rapportsPorteeLongue[p_nbCoups] : m_rapportsPorteeCourte[p_nbCoups];
+	    }
+	}
+	else
+	{
+	    Validation.paramAberrant("distance", p_distance, "nbCoups", p_nbCoups);
+	}
+	return result;
+    }
+
+    /**
+     * construit la table partagée des rapports d'attaque pour tous les
+     * modificateurs au jet et tous les nombres de coups possibles
+     *
+     * @return
+     */
+    private static DistReport[][] construireRapports()
+    {
+	DistReport[][] result = new DistReport[MOD_JET_MAX - MOD_JET_MIN + 1][NB_COUPS_MAX + 1];
+	for (int modJet = MOD_JET_MIN; modJet <= MOD_JET_MAX; ++modJet)
+	{
+	    for (int nbCoups = 1; nbCoups <= NB_COUPS_MAX; ++nbCoups)
 	    {
-		if (p_distance > (int) Math.round((double) getPortee() / (double) 2))
-		{//portée longue
-		    modJetFinal -= 5;
-		}
-		//conditions initiales remplies, maintenant il faut évaluer l'éventuelle rafale
 		int bonusDesLancesRafale = 0;
 		int bonusDesGardesRafale = 0;
 
-		if (p_nbCoups > 1)
+		if (nbCoups >= 3)//les bonus commmencent à partir de 3 balles
 		{
-		    if (getCategorie() == 4)//rafales acceptées, sinon lever une exception
+		    if (nbCoups < 4)//rafale courte
 		    {
-			if (p_nbCoups >= 3)//les bonus commmencent à partir de 3 balles
-			{
-			    if (p_nbCoups < 4)//rafale courte
-			    {
-				bonusDesLancesRafale = 2;
-			    }
-			    else
-			    {
-				if (p_nbCoups < 10)//rafale moyenne
-				{
-				    int preResult = (p_nbCoups / 3);//division entre int donc troncature
-				    bonusDesLancesRafale = preResult * 2;
-				}
-				else//rafale longue
-				{
-				    bonusDesLancesRafale = bonusDesGardesRafale = (p_nbCoups / 5);//division entre int donc troncature
-				}
-			    }
-			}
+			bonusDesLancesRafale = 2;
 		    }
 		    else
 		    {
-			recharger(p_nbCoups);//on restaure les coups retirés car fait le tir n'a pas eu lieu car l'arme ne peut tirer en rafale
-			ErrorHandler.paramAberrant(PropertiesHandler.getInstance("libupsystem").getString("nbCoups") + ":" + p_nbCoups);
+			if (nbCoups < 10)//rafale moyenne
+			{
+			    int preResult = (nbCoups / 3);//division entre int donc troncature
+			    bonusDesLancesRafale = preResult * 2;
+			}
+			else//rafale longue
+			{
+			    bonusDesLancesRafale = bonusDesGardesRafale = (nbCoups / 5);//division entre int donc troncature
+			}
 		    }
 		}
-		result = new DistReport(bonusDesLancesRafale, bonusDesGardesRafale, modJetFinal, false);
+		result[modJet - MOD_JET_MIN][nbCoups] = new DistReport(bonusDesLancesRafale, bonusDesGardesRafale, modJet, false);
 	    }
 	}
-	else
-	{
-	    ErrorHandler.paramAberrant(PropertiesHandler.getInstance("libupsystem").getString("distance") + ":" + p_distance + " " + PropertiesHandler.getInstance("libupsystem").getString("nbCoups") + ":" + p_nbCoups);
-	}
 	return result;
     }
 
@@ -207,7 +280,7 @@ public class ArmeDist extends Arme
      */
     int getMunCourantes()
     {
-	return m_magasinCourant;
+	return m_magasinCourant.get();
     }
 
     /**
@@ -240,13 +313,22 @@ public class ArmeDist extends Arme
      */
     public int recharger(int p_nbMun)
     {
-	if (p_nbMun > 0 && (p_nbMun + m_magasinCourant) <= m_magasinMax)
+	boolean recharge = false;
+	if (p_nbMun > 0)
 	{
-	    m_magasinCourant += p_nbMun;
+	    int courant = m_magasinCourant.get();
+	    while ((p_nbMun + courant) <= m_magasinMax && !recharge)
+	    {
+		recharge = m_magasinCourant.compareAndSet(courant, courant + p_nbMun);
+		if (!recharge)
+		{//un autre thread a modifié le magasin entre temps : on recommence avec la nouvelle valeur
+		    courant = m_magasinCourant.get();
+		}
+	    }
 	}
-	else
+	if (!recharge)
 	{
-	    ErrorHandler.paramAberrant(PropertiesHandler.getInstance("libupsystem").getString("nbCoups") + ":" + p_nbMun + " " + PropertiesHandler.getInstance("libupsystem").getString("taillemagasin") + ":" + m_magasinMax);
+	    Validation.paramAberrant("nbCoups", p_nbMun, "taillemagasin", m_magasinMax);
 	}
 	return getNbActionsRecharge();
     }
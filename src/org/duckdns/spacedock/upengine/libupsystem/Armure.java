@@ -18,7 +18,9 @@ package org.duckdns.spacedock.upengine.libupsystem;
 
 /**
  * classe représentant une armure et encapsulant les traitements des effets de
- * celle-ci sur les attaques entrantes
+ * celle-ci sur les attaques entrantes. Immuable : les effets contre chaque type
+ * d'arme sont calculés à la construction, une même armure peut donc être
+ * partagée entre autant de personnages et de threads que nécessaire.
  *
  * @author ykonoclast
  */
@@ -37,15 +39,33 @@ public final class Armure
      * le type d'armure
      */
     private final int m_type;
+    /**
+     * bonus au ND effectifs de l'armure, indicés par type d'arme
+     */
+    private final int[] m_bonusND;
+    /**
+     * réductions de dégâts effectives de l'armure, indicées par type d'arme
+     */
+    private final int[] m_redDegats;
 
     /**
      * constructeur d'armure
      */
     public Armure(int p_points, int p_type)
     {
+	UPReferenceArmures reference = UPReferenceArmures.getInstance();
 	m_type = p_type;
 	m_points = p_points;
-	m_malusArmure = UPReferenceArmures.getInstance().getMalusArmure(p_points);
+	m_malusArmure = reference.getMalusArmure(p_points);
+
+	int nbTypesArmes = reference.getNbTypesArmes();
+	m_bonusND = new int[nbTypesArmes];
+	m_redDegats = new int[nbTypesArmes];
+	for (int i = 0; i < nbTypesArmes; ++i)
+	{
+	    m_bonusND[i] = reference.getBonusND(p_points, i, p_type);
+	    m_redDegats[i] = reference.getRedDegats(p_points, i, p_type);
+	}
     }
 
     /**
@@ -56,7 +76,16 @@ public final class Armure
      */
     public int getBonusND(int p_typArm)
     {
-	return UPReferenceArmures.getInstance().getBonusND(m_points, p_typArm, m_type);
+	int result;
+	if (p_typArm >= 0 && p_typArm < m_bonusND.length)
+	{
+	    result = m_bonusND[p_typArm];
+	}
+	else
+	{//type inconnu de la table : la référence tranche (et lève l'erreur le cas échéant)
+	    result = UPReferenceArmures.getInstance().getBonusND(m_points, p_typArm, m_type);
+	}
+	return result;
     }
 
     /**
@@ -67,7 +96,16 @@ public final class Armure
      */
     public int getRedDegats(int p_typArm)
     {
-	return UPReferenceArmures.getInstance().getRedDegats(m_points, p_typArm, m_type);
+	int result;
+	if (p_typArm >= 0 && p_typArm < m_redDegats.length)
+	{
+	    result = m_redDegats[p_typArm];
+	}
+	else
+	{//type inconnu de la table : la référence tranche (et lève l'erreur le cas échéant)
+	    result = UPReferenceArmures.getInstance().getRedDegats(m_points, p_typArm, m_type);
+	}
+	return result;
     }
 
     /**
@@ -23,11 +23,24 @@ package org.duckdns.spacedock.upengine.libupsystem;
 public class Bouclier implements Iprotection
 {
 
+    /**
+     * cache partagé des libellés de boucliers, par combinaison de bouclier et
+     * de type
+     */
+    private static final CacheLibelles m_cacheLibelles = new CacheLibelles();
     /**
      * le libellé de cette pièce, construit à partir de son matériau et de sa
-     * nature
+     * nature à la première demande
+     */
+    private String m_libelle;
+    /**
+     * l'identifiant du bouclier dans la référence
      */
-    private final String m_libelle;
+    private final int m_idPiece;
+    /**
+     * la référence des armures dont est issu le bouclier
+     */
+    private final UPReferenceArmures m_referenceArmures;
     /**
      * le nombre de points de cette pièce
      */
@@ -46,19 +59,14 @@ public class Bouclier implements Iprotection
     public Bouclier(int p_idPiece, int p_type)
     {
 	m_type = p_type;
+	m_idPiece = p_idPiece;
 	UPReferenceArmures referenceArmures = UPReferenceArmures.getInstance();
-	UPReferenceSysteme referenceSys = UPReferenceSysteme.getInstance();
+	//le libellé n'est mis en forme qu'à la première demande, à partir de la référence courante à la construction
+	m_referenceArmures = referenceArmures;
 
-	//construction du nom
-	if (p_type == 0)
-	{//armure ancienne
-	    String libelleTemp = referenceArmures.getLblBouclier(p_idPiece);
-	    m_libelle = libelleTemp;
-	}
-	else
-	{//armure moderne
-	    String libelleTemp = referenceArmures.getLblBouclier(p_idPiece) + " " + referenceArmures.getLblTypeArmure(p_type);
-	    m_libelle = libelleTemp;
+	if (p_type != 0)
+	{//le type est contrôlé dès la construction par la lecture de son libellé, seule la mise en forme est différée
+	    referenceArmures.getLblTypeArmure(p_type);
 	}
 	m_nbpoints = referenceArmures.getPtsBouclier(p_idPiece);
     }
@@ -70,7 +78,28 @@ public class Bouclier implements Iprotection
 
     public String toString()
     {
-	return m_libelle;
+	String result = m_libelle;
+	if (result == null)
+	{
+	    long cle = ((long) m_idPiece << 32) | m_type;
+	    result = m_cacheLibelles.getLibelle(m_referenceArmures, null, cle);
+	    if (result == null)
+	    {
+		//construction du nom
+		String libelle;
+		if (m_type == 0)
+		{//armure ancienne
+		    libelle = m_referenceArmures.getLblBouclier(m_idPiece);
+		}
+		else
+		{//armure moderne
+		    libelle = m_referenceArmures.getLblBouclier(m_idPiece) + " " + m_referenceArmures.getLblTypeArmure(m_type);
+		}
+		result = m_cacheLibelles.interner(m_referenceArmures, null, cle, libelle);
+	    }
+	    m_libelle = result;
+	}
+	return result;
     }
 
     /**
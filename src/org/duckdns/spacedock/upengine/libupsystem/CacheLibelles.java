@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2017 ykonoclast
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.duckdns.spacedock.upengine.libupsystem;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * cache des libellés d'équipement : chaque combinaison d'identifiants
+ * (encodée dans un long) n'est mise en forme qu'une fois par couple de
+ * références, le libellé étant ensuite partagé par toutes les instances de
+ * cette combinaison. Le cache est abandonné dès que l'une des références
+ * change (rechargement).
+ *
+ * @author ykonoclast
+ */
+final class CacheLibelles
+{
+
+    /**
+     * état courant du cache
+     */
+    private volatile Etat m_etat = new Etat(null, null);
+
+    /**
+     *
+     * @param p_referenceEquipement
+     * @param p_referenceSysteme
+     * @param p_cle
+     * @return le libellé mémorisé pour cette combinaison ou null s'il n'a pas
+     * encore été construit
+     */
+    String getLibelle(Object p_referenceEquipement, Object p_referenceSysteme, long p_cle)
+    {
+	Etat etat = m_etat;
+	String result = null;
+	if (etat.m_referenceEquipement == p_referenceEquipement && etat.m_referenceSysteme == p_referenceSysteme)
+	{
+	    result = etat.m_libelles.get(p_cle);
+	}
+	return result;
+    }
+
+    /**
+     * mémorise un libellé fraîchement construit
+     *
+     * @param p_referenceEquipement
+     * @param p_referenceSysteme
+     * @param p_cle
+     * @param p_libelle
+     * @return le libellé partagé pour cette combinaison (celui d'un autre
+     * thread s'il a été plus rapide)
+     */
+    String interner(Object p_referenceEquipement, Object p_referenceSysteme, long p_cle, String p_libelle)
+    {
+	Etat etat = m_etat;
+	if (etat.m_referenceEquipement != p_referenceEquipement || etat.m_referenceSysteme != p_referenceSysteme)
+	{//les références ont changé : les anciens libellés sont abandonnés
+	    synchronized (this)
+	    {
+		etat = m_etat;
+		if (etat.m_referenceEquipement != p_referenceEquipement || etat.m_referenceSysteme != p_referenceSysteme)
+		{
+		    etat = new Etat(p_referenceEquipement, p_referenceSysteme);
+		    m_etat = etat;
+		}
+	    }
+	}
+	String existant = etat.m_libelles.putIfAbsent(p_cle, p_libelle);
+	return (existant == null) ? p_libelle : existant;
+    }
+
+    /**
+     * libellés associés à un couple de références
+     */
+    private static final class Etat
+    {
+
+	private final Object m_referenceEquipement;
+	private final Object m_referenceSysteme;
+	private final ConcurrentHashMap<Long, String> m_libelles = new ConcurrentHashMap<>();
+
+	private Etat(Object p_referenceEquipement, Object p_referenceSysteme)
+	{
+	    m_referenceEquipement = p_referenceEquipement;
+	    m_referenceSysteme = p_referenceSysteme;
+	}
+    }
+}
@@ -62,6 +62,17 @@ class Competence
 	}
     }
 
+    /**
+     * constructeur de copie
+     *
+     * @param p_modele
+     */
+    Competence(Competence p_modele)
+    {
+	m_rang = p_modele.m_rang;
+	m_specialites = new ArrayList<>(p_modele.m_specialites);
+    }
+
     /**
      *
      * @param p_lbl
@@ -16,8 +16,6 @@
  */
 package org.duckdns.spacedock.upengine.libupsystem;
 
-import org.duckdns.spacedock.commonutils.ErrorHandler;
-import org.duckdns.spacedock.commonutils.PropertiesHandler;
 import org.duckdns.spacedock.upengine.libupsystem.GroupeTraits.Trait;
 import org.duckdns.spacedock.upengine.libupsystem.RollGenerator.RollResult;
 
@@ -81,7 +79,7 @@ class CoupleJauges
 	}
 	else
 	{
-	    ErrorHandler.paramAberrant(PropertiesHandler.getInstance("libupsystem").getString("physique") + ":" + p_physique + " " + PropertiesHandler.getInstance("libupsystem").getString("volonte") + ":" + p_volonte + " " + PropertiesHandler.getInstance("libupsystem").getString("mental") + ":" + p_mental + " " + PropertiesHandler.getInstance("libupsystem").getString("coordination") + ":" + p_coordination);
+	    Validation.paramsAberrants("physique", p_physique, "volonte", p_volonte, "mental", p_mental, "coordination", p_coordination);
 	}
     }
 
@@ -100,7 +98,7 @@ class CoupleJauges
 	}
 	else
 	{
-	    ErrorHandler.paramAberrant(PropertiesHandler.getInstance("libupsystem").getString("physique") + ":" + p_physique + " " + PropertiesHandler.getInstance("libupsystem").getString("volonte") + ":" + p_volonte + " " + PropertiesHandler.getInstance("libupsystem").getString("traitmin") + ":" + p_tailleForceDAme);
+	    Validation.paramsAberrants("physique", p_physique, "volonte", p_volonte, "traitmin", p_tailleForceDAme);
 	}
     }
 
@@ -196,56 +194,156 @@ class CoupleJauges
     {
 	if (p_degats >= 0)
 	{
-	    int quotient;
-	    int degLourd;
-	    m_pointsDegats += p_degats;
-	    RollResult jetAbsorption = p_traits.effectuerJetTrait(Trait.PHYSIQUE, m_pointsDegats, false);
+	    encaisser(p_degats, p_traits);
+	}
+	else
+	{
+	    Validation.paramAberrant("degats", p_degats);
+	}
+    }
 
-	    if (!jetAbsorption.isJetReussi())//le jet d'absorption est en dessous du ND des blessures légères
+    /**
+     * variante de recevoirDegats réservée aux appelants ayant eux-mêmes
+     * vérifié que les dégâts sont strictement positifs : le contrôle n'y est
+     * omis qu'en mode "entrées fiables"
+     *
+     * @param p_degats
+     * @param p_traits
+     */
+    void recevoirDegatsControles(int p_degats, GroupeTraits p_traits)
+    {
+	if (Validation.ENTREES_FIABLES)
+	{
+	    encaisser(p_degats, p_traits);
+	}
+	else
+	{
+	    recevoirDegats(p_degats, p_traits);
+	}
+    }
+
+    /**
+     * encaissement proprement dit des dégâts, sans contrôle
+     *
+     * @param p_degats
+     * @param p_traits
+     */
+    private void encaisser(int p_degats, GroupeTraits p_traits)
+    {
+	int quotient;
+	int degLourd;
+	m_pointsDegats += p_degats;
+	RollResult jetAbsorption = p_traits.effectuerJetTrait(Trait.PHYSIQUE, m_pointsDegats, false);
+
+	if (!jetAbsorption.isJetReussi())//le jet d'absorption est en dessous du ND des blessures légères
+	{
+	    quotient = ((m_pointsDegats) - (jetAbsorption).getScoreBrut());
+	    quotient = quotient / 10; //on compte le nombre de tranches entières de 10, la division entre int va normalement correctement tronquer
+	    degLourd = (int) quotient + 1;//total des degats lourds : une pour avoir raté le jet, et une par tranche de 10
+	    m_pointsDegats = 0;
+	    m_remplissage_interne += degLourd;
+
+	    if (m_remplissage_interne > m_rupture)//on risque l'inconscience et l'élimination
 	    {
-		quotient = ((m_pointsDegats) - (jetAbsorption).getScoreBrut());
-		quotient = quotient / 10; //on compte le nombre de tranches entières de 10, la division entre int va normalement correctement tronquer
-		degLourd = (int) quotient + 1;//total des degats lourds : une pour avoir raté le jet, et une par tranche de 10
-		m_pointsDegats = 0;
-		m_remplissage_interne += degLourd;
+		int nbIncrementsRequis = m_remplissage_interne - m_rupture - 1;//nombre de degats lourds au delà du point de rupture moins une
+		RollResult jetInconscience = p_traits.effectuerJetTrait(Trait.VOLONTE, UPReferenceSysteme.getInstance().getValeurND(UPReferenceSysteme.ND.moyen), false);
+		boolean jetInconscienceReussi = jetInconscience.isJetReussi() && jetInconscience.getNbIncrements() >= nbIncrementsRequis;//jet d'inconscience (ND moyen, autant d'incrément que de blessures au delà du point de rupture moins une
 
-		if (m_remplissage_interne > m_rupture)//on risque l'inconscience et l'élimination
+		if (m_remplissage_interne >= m_taille_interne || !jetInconscienceReussi)//jet d'inconscience raté ou jauge remplie
 		{
-		    int nbIncrementsRequis = m_remplissage_interne - m_rupture - 1;//nombre de degats lourds au delà du point de rupture moins une
-		    RollResult jetInconscience = p_traits.effectuerJetTrait(Trait.VOLONTE, UPReferenceSysteme.getInstance().getValeurND(UPReferenceSysteme.ND.moyen), false);
-		    boolean jetInconscienceReussi = jetInconscience.isJetReussi() && jetInconscience.getNbIncrements() >= nbIncrementsRequis;//jet d'inconscience (ND moyen, autant d'incrément que de blessures au delà du point de rupture moins une
-
-		    if (m_remplissage_interne >= m_taille_interne || !jetInconscienceReussi)//jet d'inconscience raté ou jauge remplie
+		    m_inconscient = true;
+		    //on risque maintenant l'élimination
+		    RollResult jetMort = p_traits.effectuerJetTrait(Trait.PHYSIQUE, UPReferenceSysteme.getInstance().getValeurND(UPReferenceSysteme.ND.moyen), false);
+		    boolean jetMortReussi = jetMort.isJetReussi() && jetMort.getNbIncrements() >= nbIncrementsRequis;//jet de mort (ND moyen, autant d'incrément que de blessures au delà du point de rupture moins une
+		    if (m_remplissage_interne > m_taille_interne || !jetMortReussi)//jauge déborde ou jet de mort raté
 		    {
-			m_inconscient = true;
-			//on risque maintenant l'élimination
-			RollResult jetMort = p_traits.effectuerJetTrait(Trait.PHYSIQUE, UPReferenceSysteme.getInstance().getValeurND(UPReferenceSysteme.ND.moyen), false);
-			boolean jetMortReussi = jetMort.isJetReussi() && jetMort.getNbIncrements() >= nbIncrementsRequis;//jet de mort (ND moyen, autant d'incrément que de blessures au delà du point de rupture moins une
-			if (m_remplissage_interne > m_taille_interne || !jetMortReussi)//jauge déborde ou jet de mort raté
+			m_elimine = true;
+			if (m_remplissage_interne > m_taille_interne)
 			{
-			    m_elimine = true;
-			    if (m_remplissage_interne > m_taille_interne)
-			    {
-				m_remplissage_interne = m_taille_interne;//on ramène le remplissage au max de la jauge si il débordait
-			    }
+			    m_remplissage_interne = m_taille_interne;//on ramène le remplissage au max de la jauge si il débordait
 			}
 		    }
 		}
-		int ecart_IntExt = m_taille_interne - m_taille_externe;
-		if (m_remplissage_interne > ecart_IntExt)//on vide la jauge externe
+	    }
+	    int ecart_IntExt = m_taille_interne - m_taille_externe;
+	    if (m_remplissage_interne > ecart_IntExt)//on vide la jauge externe
+	    {
+		m_remplissage_externe -= m_remplissage_interne - ecart_IntExt;
+		if (m_remplissage_externe < 0)//jauge vide, on corrige tout nombre négatif
+		{
+		    m_remplissage_externe = 0;
+		}
+	    }
+	}
+    }
+
+    /**
+     * pendant analytique de recevoirDegats : calcule la loi exacte de l'issue
+     * de l'encaissement des dégâts sans modifier la jauge
+     *
+     * @param p_degats
+     * @param p_traits les traits du personnage cible, dont sont tirés les jets
+     * d'absorption, d'inconscience et de mort
+     * @return
+     */
+    DistributionEncaissement getDistributionEncaissement(int p_degats, GroupeTraits p_traits)
+    {
+	DistributionEncaissement result = null;
+	if (p_degats >= 0)
+	{
+	    int physique = p_traits.getTrait(Trait.PHYSIQUE);
+	    int volonte = p_traits.getTrait(Trait.VOLONTE);
+	    RollDistribution.Distribution loiPhysique = RollDistribution.getInstance().getDistribution(physique, physique, false);
+	    RollDistribution.Distribution loiVolonte = RollDistribution.getInstance().getDistribution(volonte, volonte, false);
+	    int NDMoyen = UPReferenceSysteme.getInstance().getValeurND(UPReferenceSysteme.ND.moyen);
+	    int NDAbsorption = m_pointsDegats + p_degats;
+
+	    //loi du nombre de blessures lourdes : une pour avoir raté le jet d'absorption, et une par tranche de 10 sous le ND
+	    double[] probasBlessures = new double[NDAbsorption / 10 + 2];
+	    probasBlessures[0] = loiPhysique.getProbaAuMoins(NDAbsorption);
+	    for (int score = 0; score < NDAbsorption; ++score)
+	    {
+		probasBlessures[(NDAbsorption - score) / 10 + 1] += loiPhysique.getProbabilite(score);
+	    }
+
+	    //états résultants, conditionnés par le nombre de blessures lourdes
+	    double probaSonne = (m_remplissage_interne >= m_rupture) ? probasBlessures[0] : 0;
+	    double probaInconscient = m_inconscient ? probasBlessures[0] : 0;
+	    double probaElimine = m_elimine ? probasBlessures[0] : 0;
+	    for (int degLourd = 1; degLourd < probasBlessures.length; ++degLourd)
+	    {
+		double probaBlessures = probasBlessures[degLourd];
+		int remplissage = m_remplissage_interne + degLourd;
+		double inconscience = 0;
+		double elimination = 0;
+		if (remplissage > m_rupture)//on risque l'inconscience et l'élimination
+		{//les jets sont réussis s'ils atteignent le ND moyen avec autant d'incréments que de blessures au delà du point de rupture moins une
+		    int seuil = NDMoyen + 5 * (remplissage - m_rupture - 1);
+		    inconscience = (remplissage >= m_taille_interne) ? 1 : 1 - loiVolonte.getProbaAuMoins(seuil);
+		    elimination = inconscience * ((remplissage > m_taille_interne) ? 1 : 1 - loiPhysique.getProbaAuMoins(seuil));
+		}
+		if (m_inconscient)
 		{
-		    m_remplissage_externe -= m_remplissage_interne - ecart_IntExt;
-		    if (m_remplissage_externe < 0)//jauge vide, on corrige tout nombre négatif
-		    {
-			m_remplissage_externe = 0;
-		    }
+		    inconscience = 1;
+		}
+		if (m_elimine)
+		{
+		    elimination = 1;
+		}
+		if (remplissage >= m_rupture)
+		{
+		    probaSonne += probaBlessures;
 		}
+		probaInconscient += probaBlessures * inconscience;
+		probaElimine += probaBlessures * elimination;
 	    }
+	    result = new DistributionEncaissement(probasBlessures, probaSonne, probaInconscient, probaElimine);
 	}
 	else
 	{
-	    ErrorHandler.paramAberrant(PropertiesHandler.getInstance("libupsystem").getString("degats") + ":" + p_degats);
+	    Validation.paramAberrant("degats", p_degats);
 	}
+	return result;
     }
 
     /**
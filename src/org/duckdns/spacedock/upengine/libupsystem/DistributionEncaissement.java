@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2017 ykonoclast
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.duckdns.spacedock.upengine.libupsystem;
+
+import java.util.Arrays;
+
+/**
+ * loi exacte de l'issue de l'encaissement d'une quantité de dégâts par une
+ * jauge : nombre de blessures lourdes (ou commotions) ajoutées et
+ * probabilités des états sonné, inconscient et éliminé après encaissement.
+ * Obtenue en composant les distributions exactes des jets d'absorption,
+ * d'inconscience et de mort fournies par RollDistribution, elle permet de
+ * mesurer la létalité d'une arme contre une armure sans échantillonnage.
+ * Immuable.
+ *
+ * @author ykonoclast
+ */
+public final class DistributionEncaissement
+{
+
+    /**
+     * probabilité de chaque nombre de blessures lourdes ajoutées, indicée par
+     * ce nombre (la case 0 correspond à une absorption réussie)
+     */
+    private final double[] m_probasBlessuresLourdes;
+    /**
+     * probabilité que la jauge soit au delà de son point de rupture après
+     * encaissement
+     */
+    private final double m_probaSonne;
+    /**
+     * probabilité que le personnage soit inconscient après encaissement
+     */
+    private final double m_probaInconscient;
+    /**
+     * probabilité que le personnage soit éliminé après encaissement
+     */
+    private final double m_probaElimine;
+
+    /**
+     * constructeur réservé aux jauges
+     *
+     * @param p_probasBlessuresLourdes
+     * @param p_probaSonne
+     * @param p_probaInconscient
+     * @param p_probaElimine
+     */
+    DistributionEncaissement(double[] p_probasBlessuresLourdes, double p_probaSonne, double p_probaInconscient, double p_probaElimine)
+    {
+	int nbMax = p_probasBlessuresLourdes.length - 1;
+	while (nbMax > 0 && p_probasBlessuresLourdes[nbMax] == 0)
+	{//on élague les nombres de blessures inatteignables en fin de tableau
+	    --nbMax;
+	}
+	m_probasBlessuresLourdes = Arrays.copyOf(p_probasBlessuresLourdes, nbMax + 1);
+	m_probaSonne = p_probaSonne;
+	m_probaInconscient = p_probaInconscient;
+	m_probaElimine = p_probaElimine;
+    }
+
+    /**
+     *
+     * @param p_sonne
+     * @param p_inconscient
+     * @param p_elimine
+     * @return la distribution d'un encaissement qui n'a aucun effet, l'état
+     * actuel étant alors certain
+     */
+    static DistributionEncaissement etatCertain(boolean p_sonne, boolean p_inconscient, boolean p_elimine)
+    {
+	return new DistributionEncaissement(new double[]
+	{
+	    1
+	}, p_sonne ? 1 : 0, p_inconscient ? 1 : 0, p_elimine ? 1 : 0);
+    }
+
+    /**
+     * tient compte des états déjà acquis par ailleurs (typiquement par l'autre
+     * jauge du personnage), qui deviennent alors certains
+     *
+     * @param p_sonne
+     * @param p_inconscient
+     * @param p_elimine
+     * @return une nouvelle distribution, celle-ci n'étant pas modifiée
+     */
+    DistributionEncaissement cumulerEtats(boolean p_sonne, boolean p_inconscient, boolean p_elimine)
+    {
+	return new DistributionEncaissement(m_probasBlessuresLourdes, p_sonne ? 1 : m_probaSonne, p_inconscient ? 1 : m_probaInconscient, p_elimine ? 1 : m_probaElimine);
+    }
+
+    /**
+     *
+     * @param p_nbBlessures
+     * @return la probabilité que l'encaissement ajoute exactement ce nombre de
+     * blessures lourdes
+     */
+    public double getProbaBlessuresLourdes(int p_nbBlessures)
+    {
+	double result = 0;
+	if (p_nbBlessures >= 0 && p_nbBlessures < m_probasBlessuresLourdes.length)
+	{
+	    result = m_probasBlessuresLourdes[p_nbBlessures];
+	}
+	return result;
+    }
+
+    /**
+     *
+     * @return le plus grand nombre de blessures lourdes pouvant être ajoutées
+     */
+    public int getNbBlessuresLourdesMax()
+    {
+	return m_probasBlessuresLourdes.length - 1;
+    }
+
+    /**
+     *
+     * @return la probabilité que les dégâts soient absorbés (aucune blessure
+     * lourde)
+     */
+    public double getProbaAbsorption()
+    {
+	return m_probasBlessuresLourdes[0];
+    }
+
+    /**
+     *
+     * @return l'espérance du nombre de blessures lourdes ajoutées
+     */
+    public double getEsperanceBlessuresLourdes()
+    {
+	double result = 0;
+	for (int i = 1; i < m_probasBlessuresLourdes.length; ++i)
+	{
+	    result += i * m_probasBlessuresLourdes[i];
+	}
+	return result;
+    }
+
+    /**
+     * @return the m_probaSonne
+     */
+    public double getProbaSonne()
+    {
+	return m_probaSonne;
+    }
+
+    /**
+     * @return the m_probaInconscient
+     */
+    public double getProbaInconscient()
+    {
+	return m_probaInconscient;
+    }
+
+    /**
+     * @return the m_probaElimine
+     */
+    public double getProbaElimine()
+    {
+	return m_probaElimine;
+    }
+}
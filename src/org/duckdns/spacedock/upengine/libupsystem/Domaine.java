@@ -17,10 +17,14 @@
 package org.duckdns.spacedock.upengine.libupsystem;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import org.duckdns.spacedock.commonutils.ErrorHandler;
 import org.duckdns.spacedock.commonutils.PropertiesHandler;
 
 /**
+ * un domaine et ses compétences. Les compétences peuvent être partagées avec
+ * des copies du domaine : une compétence partagée est recopiée avant toute
+ * modification (voir ArbreDomaines).
  *
  * @author ykonoclast
  */
@@ -37,7 +41,12 @@ class Domaine
      * d'attaque ont l'indice catégorie * 2 et les comps de parade l'indice
      * catégorie * 2 +1
      */
-    private final ArrayList<Competence> m_competences = new ArrayList<>();
+    private final ArrayList<Competence> m_competences;
+    /**
+     * vrai pour chaque compétence partagée avec un autre domaine, qui doit
+     * donc être recopiée avant toute modification
+     */
+    private final boolean[] m_competencesPartagees;
 
     /**
      * Dans ce constructeur par défaut on initialise les comps à 0
@@ -47,19 +56,49 @@ class Domaine
      */
     Domaine(int p_indice, int p_rang)
     {
+	this(p_indice, p_rang, UPReferenceSysteme.getInstance());
+    }
+
+    /**
+     * constructeur par défaut tirant le nombre de compétences d'une référence
+     * donnée
+     *
+     * @param p_indice
+     * @param p_rang
+     * @param p_reference
+     */
+    Domaine(int p_indice, int p_rang, UPReferenceSysteme p_reference)
+    {
+	int nbComps = 0;
 	if (p_indice >= 0)
 	{
 	    setRang(p_rang);
-	    int nbComps = UPReferenceSysteme.getInstance().getListComp(p_indice).size();
-	    for (int i = 0; i < nbComps; ++i)
-	    {
-		m_competences.add(new Competence(0, new ArrayList<>()));
-	    }
+	    nbComps = p_reference.getNbComp(p_indice);
 	}
 	else
 	{
 	    ErrorHandler.paramAberrant(PropertiesHandler.getInstance("commonutils").getString("indice") + ":" + p_indice);
 	}
+	m_competences = new ArrayList<>(nbComps);
+	for (int i = 0; i < nbComps; ++i)
+	{
+	    m_competences.add(new Competence(0, new ArrayList<>()));
+	}
+	m_competencesPartagees = new boolean[nbComps];
+    }
+
+    /**
+     * constructeur de copie structurelle : les compétences sont partagées avec
+     * le modèle, qui ne doit lui-même plus être modifié
+     *
+     * @param p_modele
+     */
+    Domaine(Domaine p_modele)
+    {
+	m_rang = p_modele.m_rang;
+	m_competences = new ArrayList<>(p_modele.m_competences);
+	m_competencesPartagees = new boolean[m_competences.size()];
+	Arrays.fill(m_competencesPartagees, true);
     }
 
     /**
@@ -86,6 +125,15 @@ class Domaine
 	}
     }
 
+    /**
+     *
+     * @return le nombre de compétences du domaine
+     */
+    int getNbComp()
+    {
+	return m_competences.size();
+    }
+
     /**
      * @param p_indComp l'indice de la compétence visée dans le tableau interne
      * du domaine
@@ -105,7 +153,7 @@ class Domaine
     {
 	if (p_rang <= m_rang)
 	{
-	    m_competences.get(p_indComp).setRang(p_rang);
+	    getCompetenceModifiable(p_indComp).setRang(p_rang);
 	}
 	else
 	{
@@ -130,7 +178,7 @@ class Domaine
      */
     void addSpecialite(int p_indComp, String p_specialite)
     {
-	m_competences.get(p_indComp).addSpecialite(p_specialite);
+	getCompetenceModifiable(p_indComp).addSpecialite(p_specialite);
     }
 
     /**
@@ -140,7 +188,25 @@ class Domaine
      */
     void removeSpecialite(int p_indComp, int p_indiceSpe)
     {
-	m_competences.get(p_indComp).removeSpecialite(p_indiceSpe);
+	getCompetenceModifiable(p_indComp).removeSpecialite(p_indiceSpe);
+    }
+
+    /**
+     *
+     * @param p_indComp
+     * @return la compétence visée, recopiée au préalable si elle était
+     * partagée
+     */
+    private Competence getCompetenceModifiable(int p_indComp)
+    {
+	Competence result = m_competences.get(p_indComp);
+	if (m_competencesPartagees[p_indComp])
+	{
+	    result = new Competence(result);
+	    m_competences.set(p_indComp, result);
+	    m_competencesPartagees[p_indComp] = false;
+	}
+	return result;
     }
 
     /**
@@ -156,15 +222,40 @@ class Domaine
      * @return
      */
     RollGenerator.RollResult effectuerJetComp(int p_rangTrait, int p_indComp, int p_nd, int p_modifNbDesLances, int p_modifNbDesGardes, int p_modifScore, boolean p_isSonne)
+    {
+	int rangComp = 0;
+	if (getRang() > 0 && p_indComp >= 0 && p_rangTrait >= 0)//sinon l'erreur est signalée par effectuerJetRangs
+	{
+	    rangComp = m_competences.get(p_indComp).getRang();
+	}
+	return effectuerJetRangs(getRang(), rangComp, p_rangTrait, p_indComp, p_nd, p_modifNbDesLances, p_modifNbDesGardes, p_modifScore, p_isSonne);
+    }
+
+    /**
+     * chemin rapide de effectuerJetComp, à partir des seuls rangs : utilisé
+     * par ArbreDomaines qui les tient dans sa matrice sans parcourir les
+     * objets
+     *
+     * @param p_rangDomaine
+     * @param p_rangComp
+     * @param p_rangTrait
+     * @param p_indComp l'indice de la compétence, seulement pour le message
+     * d'erreur
+     * @param p_nd
+     * @param p_modifNbDesLances
+     * @param p_modifNbDesGardes
+     * @param p_modifScore
+     * @param p_isSonne
+     * @return
+     */
+    static RollGenerator.RollResult effectuerJetRangs(int p_rangDomaine, int p_rangComp, int p_rangTrait, int p_indComp, int p_nd, int p_modifNbDesLances, int p_modifNbDesGardes, int p_modifScore, boolean p_isSonne)
     {
 	RollGenerator.RollResult result = new RollGenerator.RollResult(0, false, 0);
-	RollGenerator generator = RollGenerator.getInstance();
 
-	if (getRang() > 0 && p_indComp >= 0 && p_rangTrait >= 0)
+	if (p_rangDomaine > 0 && p_indComp >= 0 && p_rangTrait >= 0)
 	{
-	    int comp = m_competences.get(p_indComp).getRang();
-	    int modif = p_modifScore + ((comp >= 3) ? 5 : 0);
-	    int lances = getRang() + comp + p_modifNbDesLances;
+	    int modif = p_modifScore + ((p_rangComp >= 3) ? 5 : 0);
+	    int lances = p_rangDomaine + p_rangComp + p_modifNbDesLances;
 	    int gardes = p_rangTrait + p_modifNbDesGardes;
 	    if (lances > 0)
 	    {
@@ -176,7 +267,7 @@ class Domaine
 
 		    lances++;
 		}*/
-		    result = generator.effectuerJet(p_nd, lances, gardes, p_isSonne, modif);
+		    result = RollGenerator.getInstance().effectuerJet(p_nd, lances, gardes, p_isSonne, modif);
 		}
 	    }
 	}
@@ -184,7 +275,7 @@ class Domaine
 	{
 	    String message = "";
 	    message = message.concat(PropertiesHandler.getInstance("libupsystem").getString("trait") + ":" + p_rangTrait);
-	    message = message.concat(" " + PropertiesHandler.getInstance("libupsystem").getString("dom") + ":" + getRang());
+	    message = message.concat(" " + PropertiesHandler.getInstance("libupsystem").getString("dom") + ":" + p_rangDomaine);
 	    message = message.concat(" " + PropertiesHandler.getInstance("commonutils").getString("indice") + " " + PropertiesHandler.getInstance("libupsystem").getString("comp") + ":" + p_indComp);
 	    ErrorHandler.paramAberrant(message);
 	}
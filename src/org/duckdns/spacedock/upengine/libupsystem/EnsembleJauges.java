@@ -17,7 +17,7 @@
 package org.duckdns.spacedock.upengine.libupsystem;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import org.duckdns.spacedock.commonutils.ErrorHandler;
 import org.duckdns.spacedock.commonutils.PropertiesHandler;
 import org.duckdns.spacedock.upengine.libupsystem.GroupeTraits.Trait;
@@ -30,14 +30,31 @@ public class EnsembleJauges
 {
 
     /**
-     * les actions restantes du personnage dans ce tour, le tableau va varier de
-     * taille au fur et à mesure que les actions sont consommées
+     * les actions restantes du personnage dans ce tour, sous la forme du
+     * nombre d'actions restant dans chaque phase (indicé de 1 à 10, la case 0
+     * est inutilisée) : les dés d'action ne pouvant valoir que 1 à 10 cet
+     * histogramme remplace avantageusement une liste triée
      */
-    private ArrayList<Integer> m_actions;
+    private final int[] m_actionsParPhase = new int[11];
     /**
-     * référence sur les traits du personnage possédant cet ensemble de jauge
+     * la phase de la prochaine action, 11 si toutes les actions ont été
+     * consommées
      */
-    private final GroupeTraits m_groupeTraits;
+    private int m_phaseProchaineAction;
+    /**
+     * le nombre d'actions restantes
+     */
+    private int m_nbActions;
+    /**
+     * la somme des dés d'action restants
+     */
+    private int m_sommeActions;
+    /**
+     * référence sur les traits du personnage possédant cet ensemble de jauge,
+     * non finale pour suivre le personnage lorsqu'il cesse de partager ceux de
+     * son gabarit
+     */
+    private GroupeTraits m_groupeTraits;
     /**
      * non finale pour évoluer avec les traits
      */
@@ -46,6 +63,20 @@ public class EnsembleJauges
      * non finale pour évoluer avec les traits
      */
     private CoupleJauges m_jaugeFatigueForceDAme;
+    /**
+     * numéro de version des jauges, incrémenté à chaque modification de
+     * celles-ci
+     */
+    private int m_version;
+    /**
+     * dernier état vital produit, réutilisé tant que les jauges n'ont pas
+     * changé
+     */
+    private EtatVital m_etatVital;
+    /**
+     * version des jauges au moment de la production de m_etatVital
+     */
+    private int m_versionEtatVital;
 
     public EnsembleJauges(GroupeTraits p_traits)
     {
@@ -54,6 +85,16 @@ public class EnsembleJauges
 	genInit();
     }
 
+    /**
+     * remplace la référence sur les traits, sans recréer les jauges
+     *
+     * @param p_traits
+     */
+    void setGroupeTraits(GroupeTraits p_traits)
+    {
+	m_groupeTraits = p_traits;
+    }
+
     /**
      * méthode créant de nouvelles jauges en fonction du groupe de traits
      * possédé
@@ -72,16 +113,20 @@ public class EnsembleJauges
 	}
 	m_jaugeFatigueForceDAme = new CoupleJauges(m_groupeTraits.getTrait(Trait.PHYSIQUE), m_groupeTraits.getTrait(Trait.VOLONTE), traitMin);
 	m_jaugeSanteInit = new CoupleJauges(m_groupeTraits.getTrait(Trait.PHYSIQUE), m_groupeTraits.getTrait(Trait.VOLONTE), m_groupeTraits.getTrait(Trait.MENTAL), m_groupeTraits.getTrait(Trait.COORDINATION));
+	++m_version;
     }
 
     /**
-     * inflige des dégâts à la jauge de santé
+     * inflige des dégâts à la jauge de santé, ses seuls appelants
+     * (Perso.etreBlesse et la résolution par lot) n'y transmettent que des
+     * dégâts strictement positifs
      *
      * @param p_degats la quantité finale de dégâts
      */
     void recevoirDegatsPhysiques(int p_degats)
     {
-	m_jaugeSanteInit.recevoirDegats(p_degats, m_groupeTraits);
+	m_jaugeSanteInit.recevoirDegatsControles(p_degats, m_groupeTraits);
+	++m_version;
     }
 
     /**
@@ -92,6 +137,33 @@ public class EnsembleJauges
     void recevoirDegatsMentaux(int p_degats)
     {
 	m_jaugeFatigueForceDAme.recevoirDegats(p_degats, m_groupeTraits);
+	++m_version;
+    }
+
+    /**
+     * pendant analytique de recevoirDegatsPhysiques, les états tiennent aussi
+     * compte de la jauge de fatigue
+     *
+     * @param p_degats la quantité finale de dégâts
+     * @return la loi exacte de l'issue de l'encaissement, les jauges ne sont
+     * pas modifiées
+     */
+    DistributionEncaissement getDistributionDegatsPhysiques(int p_degats)
+    {
+	return m_jaugeSanteInit.getDistributionEncaissement(p_degats, m_groupeTraits).cumulerEtats(m_jaugeFatigueForceDAme.isSonne(), m_jaugeFatigueForceDAme.isInconscient(), m_jaugeFatigueForceDAme.isElimine());
+    }
+
+    /**
+     * pendant analytique de recevoirDegatsMentaux, les états tiennent aussi
+     * compte de la jauge de santé
+     *
+     * @param p_degats la quantité finale de dégâts
+     * @return la loi exacte de l'issue de l'encaissement, les jauges ne sont
+     * pas modifiées
+     */
+    DistributionEncaissement getDistributionDegatsMentaux(int p_degats)
+    {
+	return m_jaugeFatigueForceDAme.getDistributionEncaissement(p_degats, m_groupeTraits).cumulerEtats(m_jaugeSanteInit.isSonne(), m_jaugeSanteInit.isInconscient(), m_jaugeSanteInit.isElimine());
     }
 
     /**
@@ -102,16 +174,33 @@ public class EnsembleJauges
     {
 	RollGenerator generator = RollGenerator.getInstance();
 	int initiative = m_jaugeSanteInit.getRemplissage_externe();
-	ArrayList<Integer> tabResult = new ArrayList<>();
+	Arrays.fill(m_actionsParPhase, 0);
+	m_nbActions = 0;
+	m_sommeActions = 0;
 	if (initiative > 0)//le personnage est capable d'avoir des actions dans un tour
 	{
-	    for (int i = 0; i < initiative; i++)//on parcourt le tableau des actions et on le remplit
+	    for (int i = 0; i < initiative; i++)//on lance un dé par action et on le range dans sa phase
 	    {
-		tabResult.add(generator.lancerDe(true));
+		int de = generator.lancerDe(true);
+		++m_actionsParPhase[de];
+		m_sommeActions += de;
 	    }
+	    m_nbActions = initiative;
+	}
+	m_phaseProchaineAction = 1;
+	avancerProchaineAction();
+    }
+
+    /**
+     * place m_phaseProchaineAction sur la première phase, à partir de la
+     * phase courante, où il reste une action
+     */
+    private void avancerProchaineAction()
+    {
+	while (m_phaseProchaineAction <= 10 && m_actionsParPhase[m_phaseProchaineAction] == 0)
+	{
+	    ++m_phaseProchaineAction;
 	}
-	Collections.sort(tabResult);
-	m_actions = tabResult;
     }
 
     /**
@@ -126,8 +215,11 @@ public class EnsembleJauges
     {
 	boolean result = false;
 	if (isActif(p_phaseActuelle))
-	{
-	    m_actions.remove(0);//on peut agir, donc on consomme une action
+	{//on peut agir, donc on consomme une action
+	    --m_actionsParPhase[p_phaseActuelle];
+	    --m_nbActions;
+	    m_sommeActions -= p_phaseActuelle;
+	    avancerProchaineAction();
 	    result = true;
 	}
 	return result;
@@ -146,16 +238,35 @@ public class EnsembleJauges
 	{
 	    ErrorHandler.paramAberrant(PropertiesHandler.getInstance("libupsystem").getString("phase") + ":" + p_phaseActuelle);
 	}
-	return (m_actions.size() > 0 && p_phaseActuelle == m_actions.get(0));//si la liste des actions possibles n'est pas vide et que la prochaine action à accomplir est dans la phase actuelle
+	return (p_phaseActuelle == m_phaseProchaineAction);//la prochaine action à accomplir est dans la phase actuelle (jamais vrai si toutes les actions ont été consommées)
     }
 
     /**
      *
-     * @return une copie : la liste n'est pas modifiable de l'extérieur
+     * @return une copie triée des actions restantes : la liste n'est pas
+     * modifiable de l'extérieur
      */
     public ArrayList<Integer> getActions()
     {
-	return new ArrayList<>(m_actions);
+	ArrayList<Integer> result = new ArrayList<>(m_nbActions);
+	for (int phase = m_phaseProchaineAction; phase <= 10; ++phase)
+	{
+	    for (int i = 0; i < m_actionsParPhase[phase]; ++i)
+	    {
+		result.add(phase);
+	    }
+	}
+	return result;
+    }
+
+    /**
+     *
+     * @return la phase de la prochaine action, 0 si toutes les actions ont été
+     * consommées (équivalent sans allocation de getActions().get(0))
+     */
+    public int getPhaseProchaineAction()
+    {
+	return (m_nbActions > 0) ? m_phaseProchaineAction : 0;
     }
 
     /**
@@ -167,11 +278,8 @@ public class EnsembleJauges
     {
 	int result = 0;
 
-	//traitement de la partie dûe aux dés d'action, on parcourt les dés d'actions non encore consommés
-	for (int i = 0; i < m_actions.size(); ++i)
-	{
-	    result += m_actions.get(i);
-	}
+	//traitement de la partie dûe aux dés d'action, tenue à jour au fil de leur consommation
+	result += m_sommeActions;
 
 	//traitement du bonus dû à l'arme
 	if (p_arme != null)
@@ -183,11 +291,49 @@ public class EnsembleJauges
 
     /**
      *
-     * @return un descripteur de l'état des jauges au moment de l'interrogation
+     * @return un descripteur de l'état des jauges au moment de l'interrogation,
+     * celui-ci étant immuable le même objet est renvoyé tant que les jauges
+     * n'ont pas été modifiées
      */
     EtatVital getEtatVital()
     {
-	return new EtatVital();
+	if (m_etatVital == null || m_versionEtatVital != m_version)
+	{
+	    m_etatVital = new EtatVital();
+	    m_versionEtatVital = m_version;
+	}
+	return m_etatVital;
+    }
+
+    /**
+     * interrogation directe des jauges, sans passer par un EtatVital
+     *
+     * @return si l'une des deux jauges indique sonné
+     */
+    public boolean isSonne()
+    {
+	return m_jaugeFatigueForceDAme.isSonne() || m_jaugeSanteInit.isSonne();
+    }
+
+    /**
+     * interrogation directe des jauges, sans passer par un EtatVital
+     *
+     * @return si l'une des deux jauges a rendu le personnage inconscient
+     */
+    public boolean isInconscient()
+    {
+	return m_jaugeFatigueForceDAme.isInconscient() || m_jaugeSanteInit.isInconscient();
+    }
+
+    /**
+     * interrogation directe des jauges, sans passer par un EtatVital
+     *
+     * @return si l'une des deux jauges a rendu le personnage mort ou dans le
+     * coma
+     */
+    public boolean isElimine()
+    {
+	return m_jaugeFatigueForceDAme.isElimine() || m_jaugeSanteInit.isElimine();
     }
 
     /**
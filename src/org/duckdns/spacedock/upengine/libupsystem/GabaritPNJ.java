@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2017 ykonoclast
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.duckdns.spacedock.upengine.libupsystem;
+
+import org.duckdns.spacedock.commonutils.ErrorHandler;
+import org.duckdns.spacedock.commonutils.PropertiesHandler;
+
+/**
+ * gabarit partagé des PNJ standards d'un rang de menace : traits figés, arbre
+ * des domaines de référence et libellé. Les gabarits sont construits une fois
+ * par rang et par référence système (ils sont reconstruits si celle-ci est
+ * rechargée) puis partagés par tous les PNJ de ce rang, qui ne recopient les
+ * traits ou l'arbre qu'au moment de les modifier.
+ *
+ * @author ykonoclast
+ */
+final class GabaritPNJ
+{
+
+    /**
+     * rang de menace maximal d'un PNJ standard
+     */
+    static final int RM_MAX = 9;
+    /**
+     * cache courant des gabarits
+     */
+    private static volatile Cache m_cache = new Cache(null, new GabaritPNJ[RM_MAX + 1]);
+    /**
+     * les traits figés du gabarit
+     */
+    private final GroupeTraits m_traits;
+    /**
+     * l'arbre des domaines figé du gabarit
+     */
+    private final ArbreDomaines m_arbre;
+    /**
+     * le libellé des PNJ du gabarit
+     */
+    private final String m_libelle;
+
+    /**
+     * construit le gabarit du rang de menace indiqué
+     *
+     * @param p_RM
+     * @param p_reference la référence sous laquelle le gabarit est mis en
+     * cache
+     */
+    private GabaritPNJ(int p_RM, UPReferenceSysteme p_reference)
+    {
+	//configuration des traits, minimum de 2 à chacun
+	int physique = Math.max(p_RM, 2);
+	int coordination = Math.max(p_RM + 1, 2);
+	int mental = Math.max(p_RM - 2, 2);
+	int volonte = Math.max(p_RM - 1, 2);
+	int presence = Math.max(p_RM - 3, 2);
+	m_traits = new GroupeTraits(physique, coordination, mental, volonte, presence).figer();
+
+	//configuration des caractéristiques de combat une fois que l'arbre des domaines est généré
+	//configuration du domaine corps à corps
+	ArbreDomaines arbre = new ArbreDomaines(p_reference);
+	arbre.setRangDomaine(3, p_RM + 1);
+	int nbComps = p_reference.getNbComp(3);
+	for (int i = 0; i < nbComps; i++)
+	{
+	    arbre.setRangComp(3, i, p_RM + 1);
+	}
+
+	//idem pour tout le domaine combat à distance
+	arbre.setRangDomaine(4, p_RM + 1);
+	nbComps = p_reference.getNbComp(4);
+	for (int i = 0; i < nbComps; i++)
+	{
+	    arbre.setRangComp(4, i, p_RM + 1);
+	}
+	m_arbre = arbre.figer();
+
+	m_libelle = PropertiesHandler.getInstance("libupsystem").getString("lbl_perso_std") + p_RM;
+    }
+
+    /**
+     *
+     * @param p_RM
+     * @return le gabarit partagé du rang de menace indiqué
+     */
+    static GabaritPNJ getGabarit(int p_RM)
+    {
+	if (p_RM < 1 || p_RM > RM_MAX)
+	{
+	    ErrorHandler.paramAberrant(PropertiesHandler.getInstance("libupsystem").getString("rang") + ":" + p_RM);
+	}
+	UPReferenceSysteme reference = UPReferenceSysteme.getInstance();
+	Cache cache = m_cache;
+	GabaritPNJ result = (cache.m_reference == reference) ? cache.m_gabarits[p_RM] : null;
+	if (result == null)
+	{
+	    synchronized (GabaritPNJ.class)
+	    {
+		cache = m_cache;
+		if (cache.m_reference != reference)
+		{//la référence a changé : les anciens gabarits sont abandonnés
+		    cache = new Cache(reference, new GabaritPNJ[RM_MAX + 1]);
+		}
+		result = cache.m_gabarits[p_RM];
+		if (result == null)
+		{//le tableau publié n'est jamais modifié : on en publie une copie complétée
+		    result = new GabaritPNJ(p_RM, reference);
+		    GabaritPNJ[] gabarits = cache.m_gabarits.clone();
+		    gabarits[p_RM] = result;
+		    cache = new Cache(reference, gabarits);
+		}
+		m_cache = cache;
+	    }
+	}
+	return result;
+    }
+
+    /**
+     * @return the m_traits
+     */
+    GroupeTraits getTraits()
+    {
+	return m_traits;
+    }
+
+    /**
+     * @return the m_arbre
+     */
+    ArbreDomaines getArbre()
+    {
+	return m_arbre;
+    }
+
+    /**
+     * @return the m_libelle
+     */
+    String getLibelle()
+    {
+	return m_libelle;
+    }
+
+    /**
+     * association immuable d'une référence système et des gabarits construits
+     * à partir d'elle
+     */
+    private static final class Cache
+    {
+
+	private final UPReferenceSysteme m_reference;
+	private final GabaritPNJ[] m_gabarits;
+
+	private Cache(UPReferenceSysteme p_reference, GabaritPNJ[] p_gabarits)
+	{
+	    m_reference = p_reference;
+	    m_gabarits = p_gabarits;
+	}
+    }
+}
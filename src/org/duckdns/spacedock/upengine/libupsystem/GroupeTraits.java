@@ -16,12 +16,14 @@
  */
 package org.duckdns.spacedock.upengine.libupsystem;
 
-import java.util.EnumMap;
 import org.duckdns.spacedock.commonutils.ErrorHandler;
 import org.duckdns.spacedock.commonutils.PropertiesHandler;
 import org.duckdns.spacedock.upengine.libupsystem.RollGenerator.RollResult;
 
 /**
+ * les rangs des traits sont stockés en primitifs indicés par l'ordinal de
+ * leur identifiant : aucune boîte n'est manipulée lors des jets. Un groupe
+ * peut être figé pour être partagé sans risque (gabarits de PNJ par exemple).
  *
  * @author ykonoclast
  */
@@ -29,9 +31,14 @@ public class GroupeTraits
 {
 
     /**
-     * l'ensebmle des valeurs numériques correspondant aux rangs des traits
+     * l'ensemble des rangs des traits, indicés par l'ordinal de Trait (un
+     * octet suffit, les rangs allant de 0 à 10)
      */
-    private final EnumMap<Trait, Integer> m_traits;
+    private final byte[] m_rangs;
+    /**
+     * vrai si le groupe ne peut plus être modifié
+     */
+    private final boolean m_fige;
 
     /**
      * constructeur prenant les divers rangs de traits en paramétre
@@ -44,7 +51,8 @@ public class GroupeTraits
      */
     public GroupeTraits(int p_physique, int p_coordination, int p_mental, int p_volonte, int p_presence)
     {
-	m_traits = new EnumMap<>(Trait.class);
+	m_rangs = new byte[Trait.values().length];
+	m_fige = false;
 	setTrait(Trait.PHYSIQUE, p_physique);
 	setTrait(Trait.COORDINATION, p_coordination);
 	setTrait(Trait.MENTAL, p_mental);
@@ -52,6 +60,46 @@ public class GroupeTraits
 	setTrait(Trait.PRESENCE, p_presence);
     }
 
+    /**
+     * constructeur de copie
+     *
+     * @param p_modele le groupe recopié, figé ou non
+     * @param p_fige vrai si la copie doit être figée
+     */
+    private GroupeTraits(GroupeTraits p_modele, boolean p_fige)
+    {
+	m_rangs = p_modele.m_rangs.clone();
+	m_fige = p_fige;
+    }
+
+    /**
+     *
+     * @return une version figée de ce groupe, partageable entre plusieurs
+     * personnages (lui-même s'il est déjà figé)
+     */
+    GroupeTraits figer()
+    {
+	return m_fige ? this : new GroupeTraits(this, true);
+    }
+
+    /**
+     *
+     * @return une copie modifiable de ce groupe, figé ou non
+     */
+    GroupeTraits copier()
+    {
+	return new GroupeTraits(this, false);
+    }
+
+    /**
+     *
+     * @return vrai si le groupe ne peut plus être modifié
+     */
+    boolean isFige()
+    {
+	return m_fige;
+    }
+
     /**
      * effectue le jet de trait
      *
@@ -62,7 +110,8 @@ public class GroupeTraits
      */
     RollResult effectuerJetTrait(Trait p_idTrait, int p_ND, boolean p_isSonne)
     {
-	return RollGenerator.getInstance().effectuerJet(p_ND, m_traits.get(p_idTrait), m_traits.get(p_idTrait), p_isSonne, 0);
+	int rang = m_rangs[p_idTrait.ordinal()];
+	return RollGenerator.getInstance().effectuerJet(p_ND, rang, rang, p_isSonne, 0);
     }
 
     /**
@@ -73,9 +122,13 @@ public class GroupeTraits
      */
     void setTrait(Trait p_idTrait, int p_rang)
     {
+	if (m_fige)
+	{
+	    ErrorHandler.mauvaiseMethode(PropertiesHandler.getInstance("libupsystem").getString("trait") + ":" + p_idTrait);
+	}
 	if (p_rang >= 0 && p_rang < 11)
 	{
-	    m_traits.put(p_idTrait, p_rang);
+	    m_rangs[p_idTrait.ordinal()] = (byte) p_rang;
 	}
 	else
 	{
@@ -90,7 +143,7 @@ public class GroupeTraits
      */
     int getTrait(Trait p_idTrait)
     {
-	return m_traits.get(p_idTrait);
+	return m_rangs[p_idTrait.ordinal()];
     }
 
     /**
@@ -0,0 +1,246 @@
+/*
+ * Copyright (C) 2017 ykonoclast
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.duckdns.spacedock.upengine.libupsystem;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.duckdns.spacedock.commonutils.ErrorHandler;
+import org.duckdns.spacedock.commonutils.PropertiesHandler;
+
+/**
+ * ordonnanceur des actions d'un combat réunissant un nombre quelconque de
+ * participants. Plutôt que d'interroger chaque participant à chaque phase, il
+ * range chaque participant dans la file de la phase de sa prochaine action
+ * lors du tirage de l'initiative. Les files sont ensuite parcourues dans
+ * l'ordre des phases et tenues à jour au fil de l'eau : lorsqu'un participant
+ * a consommé son action (par agirEnCombat ou par une attaque), il est
+ * simplement déplacé vers la file de sa phase suivante la prochaine fois qu'il
+ * se présente en tête de file. Le coût d'un tour est donc proportionnel au
+ * nombre d'actions et non plus au produit des participants par les phases.
+ *
+ * L'ordonnanceur ne juge pas de l'état vital des participants : c'est à
+ * l'appelant de retirer ceux qui sont hors de combat.
+ *
+ * @author ykonoclast
+ */
+public final class OrdonnanceurCombat
+{
+
+    /**
+     * les participants au combat, dans leur ordre d'ajout
+     */
+    private final ArrayList<Perso> m_participants = new ArrayList<>();
+    /**
+     * files des participants par phase de leur prochaine action (indicées de 1
+     * à 10, la case 0 est inutilisée)
+     */
+    private final ArrayList<ArrayDeque<Perso>> m_files = new ArrayList<>(11);
+    /**
+     * la phase en cours de parcours, 11 quand le tour est terminé
+     */
+    private int m_phaseCourante;
+
+    /**
+     * constructeur d'un ordonnanceur sans participant
+     */
+    public OrdonnanceurCombat()
+    {
+	for (int i = 0; i <= 10; ++i)
+	{
+	    m_files.add(new ArrayDeque<>());
+	}
+	m_phaseCourante = 11;
+    }
+
+    /**
+     * constructeur ajoutant directement des participants
+     *
+     * @param p_participants
+     */
+    public OrdonnanceurCombat(Collection<Perso> p_participants)
+    {
+	this();
+	for (Perso perso : p_participants)
+	{
+	    ajouterParticipant(perso);
+	}
+    }
+
+    /**
+     * ajoute un participant au combat, il sera rangé selon ses actions
+     * actuelles s'il lui en reste dans le tour en cours. Un participant ne
+     * peut être ajouté deux fois : il serait rangé dans deux files à la fois.
+     *
+     * @param p_perso
+     */
+    public void ajouterParticipant(Perso p_perso)
+    {
+	if (p_perso == null || m_participants.contains(p_perso))
+	{
+	    ErrorHandler.paramAberrant(PropertiesHandler.getInstance("libupsystem").getString("perso") + ":" + p_perso);
+	}
+	m_participants.add(p_perso);
+	ranger(p_perso);
+    }
+
+    /**
+     * retire un participant du combat (typiquement lorsqu'il est hors de
+     * combat)
+     *
+     * @param p_perso
+     */
+    public void retirerParticipant(Perso p_perso)
+    {
+	if (m_participants.remove(p_perso))
+	{
+	    for (int i = 1; i <= 10; ++i)
+	    {
+		m_files.get(i).remove(p_perso);
+	    }
+	}
+    }
+
+    /**
+     * fait tirer l'initiative à tous les participants et les range dans les
+     * files de leur première action, le parcours reprend en phase 1
+     */
+    public void nouveauTour()
+    {
+	for (int i = 1; i <= 10; ++i)
+	{
+	    m_files.get(i).clear();
+	}
+	m_phaseCourante = 1;
+	for (Perso perso : m_participants)
+	{
+	    perso.genInit();
+	    ranger(perso);
+	}
+    }
+
+    /**
+     * renvoie le prochain participant à agir, dans l'ordre des phases puis
+     * dans l'ordre d'arrivée dans la phase. Le participant n'est pas retiré :
+     * il le sera quand il aura consommé son action, un même participant est
+     * donc renvoyé autant de fois qu'il a d'actions dans la phase.
+     *
+     * @return le prochain acteur ou null si le tour est terminé
+     */
+    public Perso getProchainActeur()
+    {
+	Perso result = null;
+	while (result == null && m_phaseCourante <= 10)
+	{
+	    ArrayDeque<Perso> file = m_files.get(m_phaseCourante);
+	    while (result == null && !file.isEmpty())
+	    {
+		Perso tete = file.peekFirst();
+		int phaseTete = tete.getPhaseProchaineAction();
+		if (phaseTete == m_phaseCourante)
+		{
+		    result = tete;
+		}
+		else
+		{//l'action a été consommée, on range le participant dans la file de sa phase suivante
+		    file.pollFirst();
+		    if (phaseTete > m_phaseCourante)
+		    {
+			m_files.get(phaseTete).addLast(tete);
+		    }
+		}
+	    }
+	    if (result == null)
+	    {
+		++m_phaseCourante;
+	    }
+	}
+	return result;
+    }
+
+    /**
+     *
+     * @param p_phase
+     * @return les participants ayant une action dans la phase indiquée, dans
+     * leur ordre de passage
+     */
+    public List<Perso> getActeurs(int p_phase)
+    {
+	if (p_phase < 1 || p_phase > 10)
+	{
+	    ErrorHandler.paramAberrant(PropertiesHandler.getInstance("libupsystem").getString("phase") + ":" + p_phase);
+	}
+	ArrayList<Perso> result = new ArrayList<>();
+	for (int i = m_phaseCourante; i <= p_phase; ++i)//les files antérieures peuvent encore contenir des participants ayant consommé leurs actions sans avoir été déplacés
+	{
+	    ArrayDeque<Perso> file = m_files.get(i);
+	    for (int j = file.size(); j > 0; --j)
+	    {
+		Perso perso = file.pollFirst();
+		int phase = perso.getPhaseProchaineAction();
+		if (phase == i)
+		{
+		    file.addLast(perso);//participant à sa place, l'ordre de la file est conservé
+		}
+		else if (phase > i)
+		{
+		    m_files.get(phase).addLast(perso);
+		}
+	    }
+	}
+	if (p_phase >= m_phaseCourante)
+	{
+	    result.addAll(m_files.get(p_phase));
+	}
+	return result;
+    }
+
+    /**
+     *
+     * @return la phase en cours de parcours, 0 si le tour est terminé
+     */
+    public int getPhaseCourante()
+    {
+	return (m_phaseCourante <= 10) ? m_phaseCourante : 0;
+    }
+
+    /**
+     *
+     * @return les participants : la liste n'est pas modifiable
+     */
+    public List<Perso> getParticipants()
+    {
+	return Collections.unmodifiableList(m_participants);
+    }
+
+    /**
+     * range un participant dans la file de sa prochaine action si elle n'est
+     * pas déjà passée
+     *
+     * @param p_perso
+     */
+    private void ranger(Perso p_perso)
+    {
+	int phase = p_perso.getPhaseProchaineAction();
+	if (phase >= m_phaseCourante && phase <= 10)//0 si le participant n'a plus d'action
+	{
+	    m_files.get(phase).addLast(p_perso);
+	}
+    }
+}
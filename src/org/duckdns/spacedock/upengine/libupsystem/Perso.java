@@ -17,8 +17,6 @@
 package org.duckdns.spacedock.upengine.libupsystem;
 
 import java.util.ArrayList;
-import org.duckdns.spacedock.commonutils.ErrorHandler;
-import org.duckdns.spacedock.commonutils.PropertiesHandler;
 import org.duckdns.spacedock.upengine.libupsystem.Arme.Degats;
 import org.duckdns.spacedock.upengine.libupsystem.EnsembleJauges.EtatVital;
 import org.duckdns.spacedock.upengine.libupsystem.GroupeTraits.Trait;
@@ -28,9 +26,10 @@ public class Perso
 {
 
     /**
-     * arbre des domaines/compétences du personnage
+     * arbre des domaines/compétences du personnage, figé et partagé avec un
+     * gabarit de PNJ tant qu'il n'est pas modifié
      */
-    private final ArbreDomaines m_arbreDomaines;
+    private ArbreDomaines m_arbreDomaines;
     /**
      * la structure encapsulant l'état vital du personnage
      */
@@ -40,9 +39,15 @@ public class Perso
      */
     private String m_libellePerso;
     /**
-     * les traits du personnage
+     * les traits du personnage, figés et partagés avec un gabarit de PNJ tant
+     * qu'ils ne sont pas modifiés
      */
-    private final GroupeTraits m_groupeTraits;
+    private GroupeTraits m_groupeTraits;
+    /**
+     * les mains nues du personnage, construites à la première attaque sans
+     * arme puis conservées tant que ses traits ne changent pas
+     */
+    private ArmeMainsNues m_mainsNues;
 
     /**
      * Constructeur de Perso prenant des caractéristiques en paramétres. Il est
@@ -69,48 +74,12 @@ public class Perso
      */
     public Perso(int p_RM)
     {
-	if (p_RM < 1 || p_RM > 9)
-	{
-	    ErrorHandler.paramAberrant(PropertiesHandler.getInstance("libupsystem").getString("rang") + ":" + p_RM);
-	}
-
-	//configuration des traits
-	ArrayList<Integer> listTrait = new ArrayList<>();
-	listTrait.add(p_RM);
-	listTrait.add(p_RM + 1);
-	listTrait.add(p_RM - 2);
-	listTrait.add(p_RM - 1);
-	listTrait.add(p_RM - 3);
-
-	for (int i = 0; i < 5; ++i)
-	{
-	    if (listTrait.get(i) < 2)
-	    {
-		listTrait.set(i, 2);//minimum de 2 aux traits
-	    }
-	}
-
-	m_groupeTraits = new GroupeTraits(listTrait.get(0), listTrait.get(1), listTrait.get(2), listTrait.get(3), listTrait.get(4));
-
+	//les traits et l'arbre sont partagés avec le gabarit du rang (qui vérifie celui-ci), seules les jauges sont propres au PNJ
+	GabaritPNJ gabarit = GabaritPNJ.getGabarit(p_RM);
+	m_groupeTraits = gabarit.getTraits();
+	m_arbreDomaines = gabarit.getArbre();
 	m_jauges = new EnsembleJauges(m_groupeTraits);
-
-	//configuration des caractéristiques de combat une fois que l'arbre des domaines est généré
-	//configuration du domaine corps à corps
-	m_arbreDomaines = new ArbreDomaines();
-	m_arbreDomaines.setRangDomaine(3, p_RM + 1);
-	for (int i = 0; i < UPReferenceSysteme.getInstance().getListComp(3).size(); i++)
-	{
-	    m_arbreDomaines.setRangComp(3, i, p_RM + 1);
-	}
-
-	//idem pour tout le domaine combat à distance
-	m_arbreDomaines.setRangDomaine(4, p_RM + 1);
-	for (int i = 0; i < UPReferenceSysteme.getInstance().getListComp(4).size(); i++)
-	{
-	    m_arbreDomaines.setRangComp(4, i, p_RM + 1);
-	}
-
-	m_libellePerso = PropertiesHandler.getInstance("libupsystem").getString("lbl_perso_std") + p_RM;
+	m_libellePerso = gabarit.getLibelle();
     }
 
     /**
@@ -121,7 +90,7 @@ public class Perso
      */
     public void addSpecialite(int p_domaine, int p_comp, String p_specialite)
     {
-	m_arbreDomaines.addSpecialite(p_domaine, p_comp, p_specialite);
+	getArbreModifiable().addSpecialite(p_domaine, p_comp, p_specialite);
     }
 
     /**
@@ -156,9 +125,10 @@ public class Perso
      * vérifie que l'action est possible dans la phase courante en fonction de
      * l'init du perso, elle est donc conçue pour le combat uniquement (utiliser
      * la méthode pour les jets de compétence généraux sinon). On utilise l'arme
-     * courante fournie (mains nues si null). Aucune vérification n'est
-     * effectuée sur le magasin actuel de l'arme. Si celui-ci n'est pas
-     * suffisant l'arme lèvera une exception.
+     * courante fournie (mains nues si null). Les coups sont réservés dans le
+     * magasin de l'arme : s'il n'en contient pas assez, rien n'est consommé et
+     * l'attaque est un échec automatique (sans exception et sans dépenser
+     * l'action), comme pour une cible hors de portée.
      *
      * Il est important de garder la génération des dégâts séparée et déclenchée
      * depuis l'extérieur afin que le contrôleur puisse choisir d'utiliser les
@@ -199,7 +169,7 @@ public class Perso
      */
     public final RollGenerator.RollResult effectuerJetComp(Trait p_idTrait, int p_indDomaine, int p_indComp, int p_ND, int p_modifNbLances, int p_modifNbGardes, int p_modifScore)
     {
-	return m_arbreDomaines.effectuerJetComp(m_groupeTraits.getTrait(p_idTrait), p_indDomaine, p_indComp, p_ND, p_modifNbLances, p_modifNbGardes, p_modifScore, m_jauges.getEtatVital().isSonne());
+	return m_arbreDomaines.effectuerJetComp(m_groupeTraits.getTrait(p_idTrait), p_indDomaine, p_indComp, p_ND, p_modifNbLances, p_modifNbGardes, p_modifScore, m_jauges.isSonne());
     }
 
     /**
@@ -211,7 +181,7 @@ public class Perso
      */
     public final RollGenerator.RollResult effectuerJetTrait(Trait p_trait, int p_ND)
     {
-	return m_groupeTraits.effectuerJetTrait(p_trait, p_ND, m_jauges.getEtatVital().isSonne());
+	return m_groupeTraits.effectuerJetTrait(p_trait, p_ND, m_jauges.isSonne());
     }
 
     /**
@@ -240,10 +210,46 @@ public class Perso
 	}
 	else
 	{
-	    ErrorHandler.paramAberrant(PropertiesHandler.getInstance("libupsystem").getString("degats") + ":" + p_degats.getQuantite() + " " + PropertiesHandler.getInstance("libupsystem").getString("type") + ":" + p_degats.getTypeArme());
+	    Validation.paramAberrant("degats", p_degats.getQuantite(), "type", p_degats.getTypeArme());
 	}
     }
 
+    /**
+     * pendant analytique de etreBlesse : calcule la loi exacte de l'issue de
+     * ces dégâts sur ce perso sans le blesser, afin d'évaluer la létalité
+     * d'une arme contre une armure sans échantillonnage
+     *
+     * @param p_degats
+     * @param p_armure peut être null
+     * @return
+     */
+    public DistributionEncaissement getDistributionBlessure(Degats p_degats, Armure p_armure)
+    {
+	DistributionEncaissement result = null;
+	if (p_degats.getQuantite() >= 0 && p_degats.getTypeArme() >= 0)
+	{
+	    int degatsEffectifs = p_degats.getQuantite();
+	    if (p_armure != null)
+	    {
+		//application des effets d'armure
+		degatsEffectifs -= p_armure.getRedDegats(p_degats.getTypeArme());
+	    }
+	    if (degatsEffectifs > 0)
+	    {
+		result = m_jauges.getDistributionDegatsPhysiques(degatsEffectifs);
+	    }
+	    else
+	    {//comme pour etreBlesse, des dégâts entièrement arrêtés ne donnent lieu à aucun jet : l'état actuel est certain
+		result = DistributionEncaissement.etatCertain(m_jauges.isSonne(), m_jauges.isInconscient(), m_jauges.isElimine());
+	    }
+	}
+	else
+	{
+	    Validation.paramAberrant("degats", p_degats.getQuantite(), "type", p_degats.getTypeArme());
+	}
+	return result;
+    }
+
     /**
      * génère des dégâts avec une arme donnée (distance ou corps à corps),
      * séparée de l'attaque pour que le contrôleur puisse utiliser les
@@ -262,17 +268,57 @@ public class Perso
 	{
 	    if (arme == null)//mains nues
 	    {
-		arme = new ArmeMainsNues(m_groupeTraits);
+		arme = getMainsNues();
 	    }
 	    result = arme.genererDegats(m_groupeTraits, m_arbreDomaines, p_increments);
 	}
 	else
 	{
-	    ErrorHandler.paramAberrant(PropertiesHandler.getInstance("libupsystem").getString("increments") + ":" + p_increments);
+	    Validation.paramAberrant("increments", p_increments);
 	}
 	return result;
     }
 
+    /**
+     *
+     * @return les mains nues du personnage, construites à la première demande
+     */
+    ArmeMainsNues getMainsNues()
+    {
+	if (m_mainsNues == null)
+	{
+	    m_mainsNues = new ArmeMainsNues(m_groupeTraits);
+	}
+	return m_mainsNues;
+    }
+
+    /**
+     * inflige directement aux jauges des dégâts physiques déjà réduits par
+     * l'armure et strictement positifs, pour la résolution par lot
+     *
+     * @param p_degatsEffectifs
+     */
+    void recevoirDegatsPhysiques(int p_degatsEffectifs)
+    {
+	m_jauges.recevoirDegatsPhysiques(p_degatsEffectifs);
+    }
+
+    /**
+     * @return the m_groupeTraits
+     */
+    GroupeTraits getGroupeTraits()
+    {
+	return m_groupeTraits;
+    }
+
+    /**
+     * @return the m_arbreDomaines
+     */
+    ArbreDomaines getArbreDomaines()
+    {
+	return m_arbreDomaines;
+    }
+
     /**
      * fait dépenser une action au personnage si il lui est possible d'agir dans
      * la phase actuelle
@@ -304,6 +350,16 @@ public class Perso
 	return m_jauges.getActions();
     }
 
+    /**
+     *
+     * @return la phase de la prochaine action, 0 si toutes les actions ont été
+     * consommées
+     */
+    public int getPhaseProchaineAction()
+    {
+	return m_jauges.getPhaseProchaineAction();
+    }
+
     /**
      *
      * @return un rapport complet sur l'état des jauges
@@ -351,7 +407,7 @@ public class Perso
 		result += p_armure.getBonusND(p_typeArme);//effets d'armure
 	    }
 	    result -= p_nbAdvSup * 2; // malus par adversaire supplémentaire
-	    if (m_jauges.getEtatVital().isSonne())//malus si sonné
+	    if (m_jauges.isSonne())//malus si sonné
 	    {
 		result -= 5;
 	    }
@@ -362,7 +418,7 @@ public class Perso
 	}
 	else
 	{
-	    ErrorHandler.paramAberrant(PropertiesHandler.getInstance("libupsystem").getString("nb_adv_sup") + ":" + p_nbAdvSup);
+	    Validation.paramAberrant("nb_adv_sup", p_nbAdvSup);
 	}
 	return result;
     }
@@ -425,7 +481,7 @@ public class Perso
      */
     public void removeSpecialite(int p_indDomaine, int p_indComp, int p_indiceSpe)
     {
-	m_arbreDomaines.removeSpecialite(p_indDomaine, p_indComp, p_indiceSpe);
+	getArbreModifiable().removeSpecialite(p_indDomaine, p_indComp, p_indiceSpe);
     }
 
     /**
@@ -436,7 +492,7 @@ public class Perso
      */
     public void setRangComp(int p_indDomaine, int p_indComp, int p_rang)
     {
-	m_arbreDomaines.setRangComp(p_indDomaine, p_indComp, p_rang);
+	getArbreModifiable().setRangComp(p_indDomaine, p_indComp, p_rang);
     }
 
     /**
@@ -446,7 +502,7 @@ public class Perso
      */
     public void setRangDomaine(int p_indDomaine, int p_rang)
     {
-	m_arbreDomaines.setRangDomaine(p_indDomaine, p_rang);
+	getArbreModifiable().setRangDomaine(p_indDomaine, p_rang);
     }
 
     /**
@@ -456,10 +512,30 @@ public class Perso
      */
     public void setTrait(Trait p_trait, int p_rang)
     {
+	if (m_groupeTraits.isFige())
+	{//les traits étaient partagés avec un gabarit : le personnage en prend une copie propre
+	    m_groupeTraits = m_groupeTraits.copier();
+	    m_jauges.setGroupeTraits(m_groupeTraits);
+	}
 	m_groupeTraits.setTrait(p_trait, p_rang);
+	m_mainsNues = null;//les mains nues dépendent du physique
 	m_jauges.initJauges();//TODO : en l'état les jauges sont complètement remplacées : on perd donc les blessures, la force d'âme dépensée etc.
     }
 
+    /**
+     *
+     * @return l'arbre des domaines, recopié au préalable (copie structurelle
+     * peu coûteuse) s'il était figé
+     */
+    private ArbreDomaines getArbreModifiable()
+    {
+	if (m_arbreDomaines.isFige())
+	{
+	    m_arbreDomaines = m_arbreDomaines.copier();
+	}
+	return m_arbreDomaines;
+    }
+
     @Override
     public String toString()
     {
@@ -22,11 +22,32 @@ package org.duckdns.spacedock.upengine.libupsystem;
 public class PieceArmure implements Iprotection
 {
 
+    /**
+     * cache partagé des libellés de pièces, par combinaison de pièce, de type
+     * et de matériau
+     */
+    private static final CacheLibelles m_cacheLibelles = new CacheLibelles();
     /**
      * le libellé de cette pièce, construit à partir de son matériau et de sa
-     * nature
+     * nature à la première demande
+     */
+    private String m_libelle;
+    /**
+     * l'identifiant de la pièce dans la référence
+     */
+    private final int m_idPiece;
+    /**
+     * le matériau de la pièce
      */
-    private final String m_libelle;
+    private final int m_materiau;
+    /**
+     * la référence des armures dont est issue la pièce
+     */
+    private final UPReferenceArmures m_referenceArmures;
+    /**
+     * la référence système dont est issue la pièce
+     */
+    private final UPReferenceSysteme m_referenceSys;
     /**
      * le nombre de points de cette pièce
      */
@@ -50,17 +71,22 @@ public class PieceArmure implements Iprotection
     public PieceArmure(int p_idPiece, int p_type, int p_materiau)
     {
 	m_type = p_type;
+	m_idPiece = p_idPiece;
+	m_materiau = p_materiau;
 	UPReferenceArmures referenceArmures = UPReferenceArmures.getInstance();
-	UPReferenceSysteme referenceSys = UPReferenceSysteme.getInstance();
+	//le libellé n'est mis en forme qu'à la première demande, à partir des références courantes à la construction
+	m_referenceArmures = referenceArmures;
+	m_referenceSys = UPReferenceSysteme.getInstance();
 
-	//construction du nom
+	//les bornes du type et du matériau sont contrôlées dès la construction par la lecture de leurs libellés, seule la mise en forme est différée
 	if (p_type == 0)
 	{//armure ancienne
-	    m_libelle = referenceArmures.getLblPiece(p_idPiece) + " " + referenceSys.getCollectionLibelles().interArmure + " " + referenceArmures.getLblMateriauArmureAncienne(p_materiau);
+	    referenceArmures.getLblMateriauArmureAncienne(p_materiau);
 	}
 	else
 	{//armure moderne
-	    m_libelle = referenceArmures.getLblPiece(p_idPiece) + " " + referenceArmures.getLblTypeArmure(p_type) + " " + referenceSys.getCollectionLibelles().liaison + " " + referenceSys.getCollectionLibelles().facture + " " + referenceArmures.getLblMateriauArmure(p_materiau);
+	    referenceArmures.getLblTypeArmure(p_type);
+	    referenceArmures.getLblMateriauArmure(p_materiau);
 	}
 	m_nbpoints = referenceArmures.getPtsPiece(p_idPiece, p_materiau);
 	m_localisation = referenceArmures.getLocalisation(p_idPiece);
@@ -73,7 +99,28 @@ public class PieceArmure implements Iprotection
 
     public String toString()
     {
-	return m_libelle;
+	String result = m_libelle;
+	if (result == null)
+	{
+	    long cle = ((long) m_idPiece << 32) | ((long) m_type << 16) | m_materiau;
+	    result = m_cacheLibelles.getLibelle(m_referenceArmures, m_referenceSys, cle);
+	    if (result == null)
+	    {
+		//construction du nom
+		String libelle;
+		if (m_type == 0)
+		{//armure ancienne
+		    libelle = m_referenceArmures.getLblPiece(m_idPiece) + " " + m_referenceSys.getCollectionLibelles().interArmure + " " + m_referenceArmures.getLblMateriauArmureAncienne(m_materiau);
+		}
+		else
+		{//armure moderne
+		    libelle = m_referenceArmures.getLblPiece(m_idPiece) + " " + m_referenceArmures.getLblTypeArmure(m_type) + " " + m_referenceSys.getCollectionLibelles().liaison + " " + m_referenceSys.getCollectionLibelles().facture + " " + m_referenceArmures.getLblMateriauArmure(m_materiau);
+		}
+		result = m_cacheLibelles.interner(m_referenceArmures, m_referenceSys, cle, libelle);
+	    }
+	    m_libelle = result;
+	}
+	return result;
     }
 
     /**
@@ -0,0 +1,230 @@
+/*
+ * Copyright (C) 2017 ykonoclast
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.duckdns.spacedock.upengine.libupsystem;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * bloc immuable des caractéristiques de référence d'une arme. Les prototypes
+ * sont lus une fois par indice et par référence des armes (ils sont abandonnés
+ * si celle-ci est rechargée) puis partagés par toutes les armes de cet
+ * indice, quelles que soient leur qualité et leur équilibrage dont les effets
+ * sont appliqués par les sous-classes d'Arme.
+ *
+ * @author ykonoclast
+ */
+final class PrototypeArme
+{
+
+    /**
+     * registre courant des prototypes
+     */
+    private static volatile Registre m_registre = new Registre(null);
+    /**
+     * la référence dont est issu le prototype
+     */
+    private final UPReferenceArmes m_reference;
+    /**
+     * l'indice de l'arme dans la référence
+     */
+    private final int m_indice;
+    /**
+     * Si l'arme nécessite deux mains pour être maniée
+     */
+    private final boolean m_arme2Mains;
+    /**
+     * le bonus apporté à l'initiative totale
+     */
+    private final int m_bonusInit;
+    /**
+     * la catégorie d'arme (permet de définir les compétences à utiliser). Pour
+     * les armes de corps à corps on définit l'attaque à 2*rang et la parade à
+     * 2*rang+1, les armes à distances ont leur attaque à rang tout simplement
+     */
+    private final int m_categorie;
+    /**
+     * la VD de l'arme
+     */
+    private final int m_vd;
+    /**
+     * le malus donné par l'arme à l'attaque
+     */
+    private final int m_malusAttaque;
+    /**
+     * le mode d'attaque de l'arme (corps à corps ou distance)
+     */
+    private final int m_mode;
+    /**
+     * le physique minimal pour manier l'arme.
+     */
+    private final int m_physMin;
+    /**
+     * le type de l'arme : simple, perce-amure, pénétrante, perce-blindage ou
+     * energétique, respectivement de 0 à 4
+     */
+    private final int m_typeArme;
+    /**
+     * la portée de l'arme, avant application de la qualité et de
+     * l'équilibrage
+     */
+    private final int m_portee;
+    /**
+     * le nombre d'actions pour recharger
+     */
+    private final int m_nbActionsRecharge;
+    /**
+     * la capacité du magasin de l'arme
+     */
+    private final int m_magasin;
+
+    /**
+     * lit dans la référence les caractéristiques de l'arme indiquée
+     *
+     * @param p_reference
+     * @param p_indice
+     */
+    private PrototypeArme(UPReferenceArmes p_reference, int p_indice)
+    {
+	m_reference = p_reference;
+	m_indice = p_indice;
+	m_vd = p_reference.getVDArme(p_indice);
+	m_bonusInit = p_reference.getBonusInitArme(p_indice);
+	m_typeArme = p_reference.getTypeArme(p_indice);
+	m_malusAttaque = p_reference.getMalusAttaqueArme(p_indice);
+	m_physMin = p_reference.getPhysMinArme(p_indice);
+	m_categorie = p_reference.getCategorieArme(p_indice);
+	m_arme2Mains = p_reference.isArme2Mains(p_indice);
+	m_mode = p_reference.getModArme(p_indice);
+	m_portee = p_reference.getPorteeArme(p_indice);
+	m_nbActionsRecharge = p_reference.getNbActionsRechargeArme(p_indice);
+	m_magasin = p_reference.getMagasinArme(p_indice);
+    }
+
+    /**
+     *
+     * @param p_reference la référence des armes courante
+     * @param p_indice
+     * @return le prototype partagé de l'arme indiquée
+     */
+    static PrototypeArme getPrototype(UPReferenceArmes p_reference, int p_indice)
+    {
+	Registre registre = m_registre;
+	if (registre.m_reference != p_reference)
+	{
+	    synchronized (PrototypeArme.class)
+	    {
+		registre = m_registre;
+		if (registre.m_reference != p_reference)
+		{//la référence a changé : les anciens prototypes sont abandonnés
+		    registre = new Registre(p_reference);
+		    m_registre = registre;
+		}
+	    }
+	}
+	PrototypeArme result = registre.m_prototypes.get(p_indice);
+	if (result == null)
+	{
+	    result = new PrototypeArme(p_reference, p_indice);
+	    PrototypeArme existant = registre.m_prototypes.putIfAbsent(p_indice, result);
+	    if (existant != null)
+	    {//un autre thread l'a construit entre temps
+		result = existant;
+	    }
+	}
+	return result;
+    }
+
+    UPReferenceArmes getReference()
+    {
+	return m_reference;
+    }
+
+    int getIndice()
+    {
+	return m_indice;
+    }
+
+    boolean isArme2Mains()
+    {
+	return m_arme2Mains;
+    }
+
+    int getBonusInit()
+    {
+	return m_bonusInit;
+    }
+
+    int getCategorie()
+    {
+	return m_categorie;
+    }
+
+    int getVD()
+    {
+	return m_vd;
+    }
+
+    int getMalusAttaque()
+    {
+	return m_malusAttaque;
+    }
+
+    int getMode()
+    {
+	return m_mode;
+    }
+
+    int getPhysMin()
+    {
+	return m_physMin;
+    }
+
+    int getTypeArme()
+    {
+	return m_typeArme;
+    }
+
+    int getPortee()
+    {
+	return m_portee;
+    }
+
+    int getNbActionsRecharge()
+    {
+	return m_nbActionsRecharge;
+    }
+
+    int getMagasin()
+    {
+	return m_magasin;
+    }
+
+    /**
+     * prototypes associés à une référence des armes
+     */
+    private static final class Registre
+    {
+
+	private final UPReferenceArmes m_reference;
+	private final ConcurrentHashMap<Integer, PrototypeArme> m_prototypes = new ConcurrentHashMap<>();
+
+	private Registre(UPReferenceArmes p_reference)
+	{
+	    m_reference = p_reference;
+	}
+    }
+}
@@ -0,0 +1,396 @@
+/*
+ * Copyright (C) 2017 ykonoclast
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.duckdns.spacedock.upengine.libupsystem;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import org.duckdns.spacedock.commonutils.ErrorHandler;
+import static org.duckdns.spacedock.commonutils.JSONHandler.loadJsonFile;
+import org.duckdns.spacedock.commonutils.PropertiesHandler;
+
+/**
+ * registre des données de référence : charge en une seule fois les trois
+ * tables (système, armes, armures) et les publie sous la forme d'un instantané
+ * immuable. La publication passe par un champ volatile, aucun thread ne peut
+ * donc observer une référence à moitié construite ni provoquer un second
+ * chargement des fichiers JSON.
+ *
+ * Les tables peuvent être rechargées à chaud depuis un répertoire reproduisant
+ * l'arborescence JSON de la bibliothèque (equipement/caracs_armes.json,
+ * tables_systeme/tab_sys.json...), les fichiers absents étant pris dans les
+ * ressources embarquées. Les rechargements sont sérialisés et le nouvel
+ * instantané est entièrement construit avant d'être substitué à l'ancien d'un
+ * seul coup : un traitement ayant conservé
+ * l'instantané obtenu par getInstantane() (un combat en cours par exemple)
+ * continue de travailler sur des tables cohérentes.
+ *
+ * @author ykonoclast
+ */
+public final class RegistreReferences
+{
+
+    /**
+     * instantané courant des données de référence, null tant que rien n'a été
+     * chargé
+     */
+    private static volatile Instantane m_instantane;
+
+    /**
+     * classe purement statique
+     */
+    private RegistreReferences()
+    {
+    }
+
+    /**
+     *
+     * @return l'instantané courant des données de référence, le charge s'il
+     * ne l'a pas encore été
+     */
+    public static Instantane getInstantane()
+    {
+	Instantane result = m_instantane;
+	if (result == null)
+	{
+	    synchronized (RegistreReferences.class)
+	    {
+		result = m_instantane;
+		if (result == null)
+		{
+		    result = construireInstantane(new ChargeurRessources());
+		    m_instantane = result;
+		}
+	    }
+	}
+	return result;
+    }
+
+    /**
+     * recharge les tables depuis un répertoire et publie le nouvel instantané.
+     * En cas d'erreur de lecture ou d'analyse l'instantané courant est
+     * conservé et l'exception est propagée.
+     *
+     * @param p_repertoire
+     * @return le nouvel instantané
+     */
+    public static Instantane recharger(Path p_repertoire)
+    {
+	Instantane result = null;
+	if (p_repertoire != null && Files.isDirectory(p_repertoire))
+	{
+	    result = publier(new ChargeurRepertoire(p_repertoire));
+	}
+	else
+	{
+	    ErrorHandler.paramAberrant(PropertiesHandler.getInstance("libupsystem").getString("repertoire") + ":" + p_repertoire);
+	}
+	return result;
+    }
+
+    /**
+     * recharge les tables depuis un répertoire sans bloquer l'appelant :
+     * l'analyse a lieu dans le pool commun
+     *
+     * @param p_repertoire
+     * @return la promesse du nouvel instantané, complétée exceptionnellement
+     * en cas d'échec (l'instantané courant étant alors conservé)
+     */
+    public static CompletableFuture<Instantane> rechargerAsync(Path p_repertoire)
+    {
+	return CompletableFuture.supplyAsync(() -> recharger(p_repertoire));
+    }
+
+    /**
+     * surveille un répertoire et ses sous-répertoires de tables : toute
+     * création ou modification de fichier déclenche un rechargement sur un
+     * thread démon dédié
+     *
+     * @param p_repertoire
+     * @return la surveillance, à fermer pour y mettre fin
+     * @throws IOException si le service de surveillance ne peut être mis en
+     * place
+     */
+    public static Surveillance surveiller(Path p_repertoire) throws IOException
+    {
+	Surveillance result = null;
+	if (p_repertoire != null && Files.isDirectory(p_repertoire))
+	{
+	    result = new Surveillance(p_repertoire);
+	}
+	else
+	{
+	    ErrorHandler.paramAberrant(PropertiesHandler.getInstance("libupsystem").getString("repertoire") + ":" + p_repertoire);
+	}
+	return result;
+    }
+
+    /**
+     *
+     * @param p_chargeur
+     * @return un instantané entièrement construit à partir des fichiers
+     * fournis par le chargeur
+     */
+    private static Instantane construireInstantane(Function<String, JsonObject> p_chargeur)
+    {
+	UPReferenceSysteme referenceSysteme = new UPReferenceSysteme(p_chargeur);
+	UPReferenceArmes referenceArmes = new UPReferenceArmes(p_chargeur);
+	referenceSysteme.calculerListesComp(referenceArmes);//les libellés des compétences de combat dépendent des armes de ce même instantané
+	return new Instantane(referenceSysteme, referenceArmes, new UPReferenceArmures(p_chargeur));
+    }
+
+    /**
+     * revient aux tables embarquées dans la bibliothèque
+     *
+     * @return le nouvel instantané
+     */
+    public static Instantane rechargerRessourcesEmbarquees()
+    {
+	return publier(new ChargeurRessources());
+    }
+
+    /**
+     * construit un instantané et le publie au sein d'une même section
+     * critique : deux rechargements concurrents (rechargerAsync et la
+     * surveillance par exemple) ne peuvent ainsi publier leurs instantanés dans
+     * le désordre, le dernier publié est toujours le dernier construit. Les
+     * lecteurs ne sont pas concernés, ils ne font que lire le champ volatile
+     *
+     * @param p_chargeur
+     * @return le nouvel instantané
+     */
+    private static Instantane publier(Function<String, JsonObject> p_chargeur)
+    {
+	Instantane result;
+	synchronized (RegistreReferences.class)
+	{
+	    result = construireInstantane(p_chargeur);
+	    m_instantane = result;
+	}
+	return result;
+    }
+
+    /**
+     * point d'amorçage explicite à appeler au démarrage du serveur : effectue
+     * tous les chargements (tables de référence et libellés) afin que la
+     * latence de la première requête n'inclue pas l'analyse des fichiers
+     */
+    public static void prechauffer()
+    {
+	getInstantane();
+	PropertiesHandler.getInstance("libupsystem");
+	RollGenerator.getInstance();
+    }
+
+    /**
+     * ensemble cohérent et immuable des trois références
+     */
+    public static final class Instantane
+    {
+
+	private final UPReferenceSysteme m_referenceSysteme;
+	private final UPReferenceArmes m_referenceArmes;
+	private final UPReferenceArmures m_referenceArmures;
+
+	/**
+	 *
+	 * @param p_referenceSysteme
+	 * @param p_referenceArmes
+	 * @param p_referenceArmures
+	 */
+	Instantane(UPReferenceSysteme p_referenceSysteme, UPReferenceArmes p_referenceArmes, UPReferenceArmures p_referenceArmures)
+	{
+	    m_referenceSysteme = p_referenceSysteme;
+	    m_referenceArmes = p_referenceArmes;
+	    m_referenceArmures = p_referenceArmures;
+	}
+
+	public UPReferenceSysteme getReferenceSysteme()
+	{
+	    return m_referenceSysteme;
+	}
+
+	public UPReferenceArmes getReferenceArmes()
+	{
+	    return m_referenceArmes;
+	}
+
+	public UPReferenceArmures getReferenceArmures()
+	{
+	    return m_referenceArmures;
+	}
+    }
+
+    /**
+     * surveillance d'un répertoire de tables, rechargées à chaque modification
+     */
+    public static final class Surveillance implements AutoCloseable
+    {
+
+	private final WatchService m_service;
+	private final Thread m_thread;
+	/**
+	 * dernière erreur de rechargement, null si le dernier s'est bien passé
+	 */
+	private volatile RuntimeException m_derniereErreur;
+
+	/**
+	 *
+	 * @param p_repertoire
+	 * @throws IOException
+	 */
+	private Surveillance(Path p_repertoire) throws IOException
+	{
+	    m_service = p_repertoire.getFileSystem().newWatchService();
+	    enregistrer(p_repertoire);
+	    enregistrer(p_repertoire.resolve("equipement"));
+	    enregistrer(p_repertoire.resolve("tables_systeme"));
+	    m_thread = new Thread(() -> surveiller(p_repertoire), "libupsystem-surveillance-references");
+	    m_thread.setDaemon(true);
+	    m_thread.start();
+	}
+
+	/**
+	 *
+	 * @param p_repertoire ignoré s'il n'existe pas
+	 * @throws IOException
+	 */
+	private void enregistrer(Path p_repertoire) throws IOException
+	{
+	    if (Files.isDirectory(p_repertoire))
+	    {
+		p_repertoire.register(m_service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+	    }
+	}
+
+	/**
+	 * boucle du thread de surveillance
+	 *
+	 * @param p_repertoire
+	 */
+	private void surveiller(Path p_repertoire)
+	{
+	    try
+	    {
+		while (true)
+		{
+		    WatchKey cle = m_service.take();
+		    cle.pollEvents();
+		    cle.reset();
+		    try
+		    {
+			recharger(p_repertoire);
+			m_derniereErreur = null;
+		    }
+		    catch (RuntimeException e)
+		    {//fichier en cours d'écriture ou invalide : on garde l'instantané courant et on attend la modification suivante
+			m_derniereErreur = e;
+		    }
+		}
+	    }
+	    catch (InterruptedException | ClosedWatchServiceException e)
+	    {
+		//fin de la surveillance
+	    }
+	}
+
+	/**
+	 *
+	 * @return l'erreur du dernier rechargement, null s'il a réussi
+	 */
+	public RuntimeException getDerniereErreur()
+	{
+	    return m_derniereErreur;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+	    m_service.close();
+	    m_thread.interrupt();
+	}
+    }
+
+    /**
+     * chargeur des fichiers JSON embarqués dans la bibliothèque. Les chargeurs
+     * sont des classes nommées plutôt que des lambdas : les références qui les
+     * appellent sont instrumentées par PowerMock dans les tests, qui ne sait
+     * pas résoudre les appels sur ces dernières.
+     */
+    private static final class ChargeurRessources implements Function<String, JsonObject>
+    {
+
+	@Override
+	public JsonObject apply(String p_chemin)
+	{
+	    return loadJsonFile("libupsystem", p_chemin);
+	}
+    }
+
+    /**
+     * chargeur des fichiers JSON d'un répertoire, se rabattant sur les
+     * ressources embarquées pour les fichiers qui n'y figurent pas
+     */
+    private static final class ChargeurRepertoire implements Function<String, JsonObject>
+    {
+
+	private final Path m_repertoire;
+
+	/**
+	 *
+	 * @param p_repertoire
+	 */
+	private ChargeurRepertoire(Path p_repertoire)
+	{
+	    m_repertoire = p_repertoire;
+	}
+
+	@Override
+	public JsonObject apply(String p_chemin)
+	{
+	    JsonObject result;
+	    Path fichier = m_repertoire.resolve(p_chemin);
+	    if (Files.isRegularFile(fichier))
+	    {
+		try (InputStream flux = Files.newInputStream(fichier); JsonReader lecteur = Json.createReader(flux))
+		{
+		    result = lecteur.readObject();
+		}
+		catch (IOException e)
+		{
+		    throw new UncheckedIOException(e);
+		}
+	    }
+	    else
+	    {
+		result = loadJsonFile("libupsystem", p_chemin);
+	    }
+	    return result;
+	}
+    }
+}
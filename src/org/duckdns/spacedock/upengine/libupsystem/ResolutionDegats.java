@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2017 ykonoclast
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.duckdns.spacedock.upengine.libupsystem;
+
+import java.lang.reflect.Array;
+
+/**
+ * résolution par lot des coups portés : pour un ensemble de coups réussis
+ * (attaquant, incréments, arme, défenseur, armure), les dégâts bruts puis la
+ * réduction d'armure sont calculés dans des boucles sur des tableaux
+ * d'entiers, sans créer d'objet Degats. Seul l'encaissement, qui exige des
+ * jets d'absorption propres à chaque cible, est ensuite traité coup par coup.
+ * Les dégâts ne dépendant pas de l'état des jauges, le résultat est le même
+ * que celui de genererDegats puis etreBlesse appelés coup par coup dans
+ * l'ordre des tableaux.
+ *
+ * @author ykonoclast
+ */
+public final class ResolutionDegats
+{
+
+    /**
+     * classe purement statique
+     */
+    private ResolutionDegats()
+    {
+    }
+
+    /**
+     * résout les p_nbCoups premiers coups décrits par les tableaux
+     *
+     * @param p_nbCoups
+     * @param p_attaquants
+     * @param p_increments les incréments de chaque attaque réussie
+     * @param p_armes null pour les mains nues, le tableau lui-même peut être
+     * null si tous les coups sont portés à mains nues
+     * @param p_defenseurs
+     * @param p_armures null pour une cible sans armure, le tableau lui-même
+     * peut être null si aucune cible n'en porte
+     * @param p_degatsBruts reçoit les dégâts de chaque coup avant armure, peut
+     * être null si l'appelant n'en a pas l'usage
+     * @param p_degatsEffectifs reçoit les dégâts de chaque coup après armure
+     * (négatifs ou nuls s'ils sont entièrement arrêtés), peut être null
+     * @return le nombre de coups ayant effectivement atteint les jauges
+     */
+    public static int resoudre(int p_nbCoups, Perso[] p_attaquants, int[] p_increments, Arme[] p_armes, Perso[] p_defenseurs, Armure[] p_armures, int[] p_degatsBruts, int[] p_degatsEffectifs)
+    {
+	int result = 0;
+	if (p_nbCoups < 0)
+	{
+	    Validation.paramAberrant("nbCoups", p_nbCoups);
+	}
+	//tout est contrôlé avant le premier encaissement afin qu'une erreur ne laisse pas le lot à moitié appliqué
+	verifierTableau(p_nbCoups, "attaquants", p_attaquants, false);
+	verifierTableau(p_nbCoups, "increments", p_increments, false);
+	verifierTableau(p_nbCoups, "armes", p_armes, true);
+	verifierTableau(p_nbCoups, "defenseurs", p_defenseurs, false);
+	verifierTableau(p_nbCoups, "armures", p_armures, true);
+	verifierTableau(p_nbCoups, "degatsBruts", p_degatsBruts, true);
+	verifierTableau(p_nbCoups, "degatsEffectifs", p_degatsEffectifs, true);
+	for (int i = 0; i < p_nbCoups; ++i)
+	{
+	    if (p_increments[i] < 0)
+	    {
+		Validation.paramAberrant("increments", p_increments[i]);
+	    }
+	    if (p_attaquants[i] == null || p_defenseurs[i] == null)
+	    {
+		Validation.paramAberrant("attaquants", p_attaquants[i], "defenseurs", p_defenseurs[i]);
+	    }
+	}
+	int[] bruts = (p_degatsBruts != null) ? p_degatsBruts : new int[p_nbCoups];
+	int[] effectifs = (p_degatsEffectifs != null) ? p_degatsEffectifs : new int[p_nbCoups];
+	int[] types = new int[p_nbCoups];
+
+	//dégâts bruts : VD de l'arme, bonus de caractéristiques et deux points par incrément
+	for (int i = 0; i < p_nbCoups; ++i)
+	{
+	    Perso attaquant = p_attaquants[i];
+	    Arme arme = (p_armes == null || p_armes[i] == null) ? attaquant.getMainsNues() : p_armes[i];
+	    int degats = arme.getVD() + arme.extractBonusCarac(attaquant.getGroupeTraits(), attaquant.getArbreDomaines()) + 2 * p_increments[i];
+	    int type = arme.getTypeArme();
+	    if (degats < 0 || type < 0)
+	    {
+		Validation.paramAberrant("degats", degats, "type", type);
+	    }
+	    bruts[i] = degats;
+	    types[i] = type;
+	}
+
+	//réduction par l'armure, lue dans les tables précalculées des armures
+	for (int i = 0; i < p_nbCoups; ++i)
+	{
+	    Armure armure = (p_armures == null) ? null : p_armures[i];
+	    effectifs[i] = (armure == null) ? bruts[i] : bruts[i] - armure.getRedDegats(types[i]);
+	}
+
+	//encaissement : seuls les coups non arrêtés donnent lieu aux jets des jauges, cible par cible
+	for (int i = 0; i < p_nbCoups; ++i)
+	{
+	    if (effectifs[i] > 0)
+	    {
+		p_defenseurs[i].recevoirDegatsPhysiques(effectifs[i]);
+		++result;
+	    }
+	}
+	return result;
+    }
+
+    /**
+     * vérifie qu'un tableau du lot est fourni (s'il est obligatoire) et
+     * couvre les p_nbCoups premiers coups
+     *
+     * @param p_nbCoups
+     * @param p_cle la clé du libellé du tableau
+     * @param p_tableau
+     * @param p_facultatif si le tableau peut être null
+     */
+    private static void verifierTableau(int p_nbCoups, String p_cle, Object p_tableau, boolean p_facultatif)
+    {
+	if (p_tableau == null)
+	{
+	    if (!p_facultatif)
+	    {
+		Validation.paramAberrant("nbCoups", p_nbCoups, p_cle, null);
+	    }
+	}
+	else
+	{
+	    int longueur = Array.getLength(p_tableau);
+	    if (longueur < p_nbCoups)
+	    {
+		Validation.paramAberrant("nbCoups", p_nbCoups, p_cle, longueur);
+	    }
+	}
+    }
+}
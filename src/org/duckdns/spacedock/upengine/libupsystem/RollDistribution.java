@@ -0,0 +1,404 @@
+/*
+ * Copyright (C) 2017 ykonoclast
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.duckdns.spacedock.upengine.libupsystem;
+
+import java.util.concurrent.ConcurrentHashMap;
+import org.duckdns.spacedock.commonutils.ErrorHandler;
+import org.duckdns.spacedock.commonutils.PropertiesHandler;
+
+/**
+ * pendant analytique de RollGenerator : calcule la distribution exacte des
+ * scores d'un jet XgY (avec ou sans relance des dix) par programmation
+ * dynamique plutôt que par échantillonnage. Les distributions sont mémorisées
+ * par triplet (lancés, gardés, explosion) : seul le premier calcul d'une
+ * configuration coûte quelque chose.
+ *
+ * @author ykonoclast
+ */
+public final class RollDistribution
+{
+
+    /**
+     * nombre maximal d'explosions successives d'un même dé prises en compte, la
+     * probabilité de dépasser ce nombre (10^-12) est reportée sur la dernière
+     * valeur atteignable afin que la distribution reste normalisée
+     */
+    private static final int PROFONDEUR_EXPLOSION = 12;
+    /**
+     * probabilité en dessous de laquelle un état intermédiaire du calcul est
+     * abandonné
+     */
+    private static final double SEUIL_NEGLIGEABLE = 1e-18;
+    /**
+     * distributions déjà calculées, indexées par configuration de jet
+     */
+    private final ConcurrentHashMap<Integer, Distribution> m_cache;
+    /**
+     * instance unique de cet objet
+     */
+    private static volatile RollDistribution m_instance;
+
+    /**
+     * véritable constructeur privé
+     */
+    private RollDistribution()
+    {
+	m_cache = new ConcurrentHashMap<>();
+    }
+
+    /**
+     *
+     * @return l'instance unique du calculateur, la construit si elle n'existe
+     * pas
+     */
+    public static RollDistribution getInstance()
+    {
+	if (m_instance == null)
+	{
+	    synchronized (RollDistribution.class)
+	    {
+		if (m_instance == null)
+		{
+		    m_instance = new RollDistribution();
+		}
+	    }
+	}
+	return (m_instance);
+    }
+
+    /**
+     * pendant exact de RollGenerator.lancerGarder
+     *
+     * @param p_nbLances
+     * @param p_nbGardes
+     * @param p_non_relance_dix
+     * @return la distribution des scores bruts du jet
+     */
+    public Distribution getDistribution(int p_nbLances, int p_nbGardes, boolean p_non_relance_dix)
+    {
+	Distribution result = null;
+	if (p_nbLances >= 0 && p_nbGardes >= 0)
+	{
+	    int lances = Math.max(p_nbLances, p_nbGardes);//inversion des dés lancés et gardés si nécessaire, comme pour le jet réel
+	    int gardes = Math.min(p_nbLances, p_nbGardes);
+	    Integer cle = (lances << 16) | (gardes << 1) | (p_non_relance_dix ? 1 : 0);
+	    result = m_cache.get(cle);
+	    if (result == null)
+	    {
+		result = new Distribution(calculerDistribution(lances, gardes, p_non_relance_dix));
+		Distribution concurrente = m_cache.putIfAbsent(cle, result);
+		if (concurrente != null)
+		{//un autre thread a calculé la même distribution entre temps, on garde la sienne
+		    result = concurrente;
+		}
+	    }
+	}
+	else
+	{
+	    String message = "";
+	    message = message.concat(PropertiesHandler.getInstance("libupsystem").getString("lances") + ":" + p_nbLances);
+	    message = message.concat(" " + PropertiesHandler.getInstance("libupsystem").getString("gardes") + ":" + p_nbGardes);
+	    ErrorHandler.paramAberrant(message);
+	}
+	return result;
+    }
+
+    /**
+     * pendant exact de RollGenerator.effectuerJet
+     *
+     * @param p_ND
+     * @param p_nbLances
+     * @param p_nbGardes
+     * @param p_non_relance_dix
+     * @param p_modif le modificateur au score final
+     * @return la probabilité que le jet soit réussi
+     */
+    public double getProbaReussite(int p_ND, int p_nbLances, int p_nbGardes, boolean p_non_relance_dix, int p_modif)
+    {
+	return getDistribution(p_nbLances, p_nbGardes, p_non_relance_dix).getProbaAuMoins(p_ND - p_modif);
+    }
+
+    /**
+     * pendant exact de RollGenerator.effectuerJet
+     *
+     * @param p_ND
+     * @param p_nbLances
+     * @param p_nbGardes
+     * @param p_non_relance_dix
+     * @param p_modif le modificateur au score final
+     * @return l'espérance du nombre d'incréments obtenus (un échec comptant
+     * pour zéro incrément)
+     */
+    public double getEsperanceIncrements(int p_ND, int p_nbLances, int p_nbGardes, boolean p_non_relance_dix, int p_modif)
+    {
+	Distribution distribution = getDistribution(p_nbLances, p_nbGardes, p_non_relance_dix);
+	double result = 0;
+	for (int score = Math.max(0, p_ND - p_modif); score <= distribution.getScoreMax(); ++score)
+	{
+	    result += distribution.getProbabilite(score) * ((score + p_modif - p_ND) / 5);//division entre entiers donc troncature, comme dans effectuerJet
+	}
+	return result;
+    }
+
+    /**
+     * calcule la loi de la somme des p_nbGardes meilleurs dés parmi
+     * p_nbLances. Les valeurs possibles d'un dé sont parcourues de la plus
+     * haute à la plus basse : pour chacune on répartit les dés restants entre
+     * ceux qui affichent exactement cette valeur et ceux qui affichent moins
+     * (loi binomiale conditionnelle). Un état est donc (dés restants, dés déjà
+     * gardés, somme des dés gardés) et il est clos dès que tous les dés gardés
+     * sont connus.
+     *
+     * @param p_nbLances supérieur ou égal à p_nbGardes
+     * @param p_nbGardes
+     * @param p_non_relance_dix
+     * @return le tableau des probabilités indicé par le score
+     */
+    private static double[] calculerDistribution(int p_nbLances, int p_nbGardes, boolean p_non_relance_dix)
+    {
+	double[] loiDe = loiUnDe(p_non_relance_dix);
+	int valeurMax = loiDe.length - 1;
+	double[] result = new double[p_nbGardes * valeurMax + 1];
+
+	if (p_nbGardes == 0)
+	{
+	    result[0] = 1;
+	}
+	else
+	{
+	    int largeurSomme = p_nbGardes * valeurMax + 1;
+	    int tailleEtats = (p_nbLances + 1) * p_nbGardes * largeurSomme;//états indicés par ((restants * gardés) + dejaGardes) * largeurSomme + somme
+	    double[] etats = new double[tailleEtats];
+	    double[] suivants = new double[tailleEtats];
+	    int[] actifs = new int[tailleEtats];
+	    int[] actifsSuivants = new int[tailleEtats];
+	    int nbActifs = 1;
+	    etats[(p_nbLances * p_nbGardes) * largeurSomme] = 1;
+	    actifs[0] = (p_nbLances * p_nbGardes) * largeurSomme;
+
+	    double cumul = 1;//probabilité qu'un dé soit inférieur ou égal à la valeur courante
+	    double[] binomiale = new double[p_nbLances + 1];
+	    for (int valeur = valeurMax; valeur > 0 && nbActifs > 0; --valeur)
+	    {
+		if (loiDe[valeur] > 0)
+		{
+		    double q = (valeur == 1) ? 1 : loiDe[valeur] / cumul;//probabilité qu'un dé restant affiche exactement cette valeur
+		    int nbActifsSuivants = 0;
+		    for (int i = 0; i < nbActifs; ++i)
+		    {
+			int indice = actifs[i];
+			double proba = etats[indice];
+			etats[indice] = 0;
+			int somme = indice % largeurSomme;
+			int dejaGardes = (indice / largeurSomme) % p_nbGardes;
+			int restants = (indice / largeurSomme) / p_nbGardes;
+			remplirBinomiale(binomiale, restants, q);
+
+			for (int nb = 0; nb <= restants; ++nb)
+			{
+			    double probaTransition = proba * binomiale[nb];
+			    if (probaTransition > SEUIL_NEGLIGEABLE)
+			    {
+				int gardes = Math.min(p_nbGardes, dejaGardes + nb);
+				int nouvelleSomme = somme + valeur * (gardes - dejaGardes);
+				if (gardes == p_nbGardes)
+				{//tous les dés gardés sont connus : le score est définitif
+				    result[nouvelleSomme] += probaTransition;
+				}
+				else
+				{
+				    int nouvelIndice = (((restants - nb) * p_nbGardes) + gardes) * largeurSomme + nouvelleSomme;
+				    if (suivants[nouvelIndice] == 0)
+				    {
+					actifsSuivants[nbActifsSuivants] = nouvelIndice;
+					++nbActifsSuivants;
+				    }
+				    suivants[nouvelIndice] += probaTransition;
+				}
+			    }
+			}
+		    }
+		    //on échange les deux couches d'états
+		    double[] tampon = etats;
+		    etats = suivants;
+		    suivants = tampon;
+		    int[] tamponActifs = actifs;
+		    actifs = actifsSuivants;
+		    actifsSuivants = tamponActifs;
+		    nbActifs = nbActifsSuivants;
+		    cumul -= loiDe[valeur];
+		}
+	    }
+	}
+	return result;
+    }
+
+    /**
+     * remplit le tableau avec les probabilités binomiales B(p_n, p_q)
+     *
+     * @param p_tableau
+     * @param p_n
+     * @param p_q
+     */
+    private static void remplirBinomiale(double[] p_tableau, int p_n, double p_q)
+    {
+	double coeff = 1;//coefficient binomial courant
+	for (int k = 0; k <= p_n; ++k)
+	{
+	    p_tableau[k] = coeff * Math.pow(p_q, k) * Math.pow(1 - p_q, p_n - k);
+	    coeff = coeff * (p_n - k) / (k + 1);
+	}
+    }
+
+    /**
+     *
+     * @param p_non_relance_dix
+     * @return la loi d'un dé seul indicée par sa valeur, éventuellement
+     * explosif (auquel cas les multiples de dix sont inatteignables, sauf la
+     * dernière valeur qui recueille la queue de distribution tronquée)
+     */
+    private static double[] loiUnDe(boolean p_non_relance_dix)
+    {
+	double[] result;
+	if (p_non_relance_dix)
+	{
+	    result = new double[11];
+	    for (int i = 1; i <= 10; ++i)
+	    {
+		result[i] = 0.1;
+	    }
+	}
+	else
+	{
+	    result = new double[PROFONDEUR_EXPLOSION * 10 + 1];
+	    double probaNiveau = 0.1;//probabilité d'une face donnée après autant d'explosions que le niveau courant
+	    for (int niveau = 0; niveau < PROFONDEUR_EXPLOSION; ++niveau)
+	    {
+		for (int face = 1; face <= 9; ++face)
+		{
+		    result[niveau * 10 + face] = probaNiveau;
+		}
+		probaNiveau /= 10;
+	    }
+	    result[PROFONDEUR_EXPLOSION * 10] = probaNiveau * 10;//queue de distribution tronquée
+	}
+	return result;
+    }
+
+    /**
+     * classe interne encapsulant la loi des scores bruts d'une configuration de
+     * jet, immuable et donc partageable entre threads
+     */
+    public static final class Distribution
+    {
+
+	/**
+	 * probabilité de chaque score brut, indicée par le score
+	 */
+	private final double[] m_probabilites;
+	/**
+	 * probabilité d'obtenir au moins chaque score brut, indicée par le
+	 * score
+	 */
+	private final double[] m_probasAuMoins;
+	/**
+	 * espérance du score brut
+	 */
+	private final double m_esperance;
+
+	/**
+	 *
+	 * @param p_probabilites les probabilités de chaque score
+	 */
+	private Distribution(double[] p_probabilites)
+	{
+	    int scoreMax = p_probabilites.length - 1;
+	    while (scoreMax > 0 && p_probabilites[scoreMax] == 0)
+	    {//on élague les scores inatteignables en fin de tableau
+		--scoreMax;
+	    }
+	    m_probabilites = new double[scoreMax + 1];
+	    m_probasAuMoins = new double[scoreMax + 1];
+	    double cumul = 0;
+	    double esperance = 0;
+	    for (int score = scoreMax; score >= 0; --score)
+	    {
+		m_probabilites[score] = p_probabilites[score];
+		cumul += p_probabilites[score];
+		m_probasAuMoins[score] = cumul;
+		esperance += score * p_probabilites[score];
+	    }
+	    m_esperance = esperance;
+	}
+
+	/**
+	 *
+	 * @param p_score
+	 * @return la probabilité d'obtenir exactement ce score brut
+	 */
+	public double getProbabilite(int p_score)
+	{
+	    double result = 0;
+	    if (p_score >= 0 && p_score < m_probabilites.length)
+	    {
+		result = m_probabilites[p_score];
+	    }
+	    return result;
+	}
+
+	/**
+	 *
+	 * @param p_seuil
+	 * @return la probabilité d'obtenir un score brut supérieur ou égal au
+	 * seuil
+	 */
+	public double getProbaAuMoins(int p_seuil)
+	{
+	    double result = 0;
+	    if (p_seuil <= 0)
+	    {
+		result = m_probasAuMoins[0];
+	    }
+	    else
+	    {
+		if (p_seuil < m_probasAuMoins.length)
+		{
+		    result = m_probasAuMoins[p_seuil];
+		}
+	    }
+	    return result;
+	}
+
+	/**
+	 *
+	 * @return l'espérance du score brut
+	 */
+	public double getEsperance()
+	{
+	    return m_esperance;
+	}
+
+	/**
+	 *
+	 * @return le plus haut score de probabilité non nulle
+	 */
+	public int getScoreMax()
+	{
+	    return m_probabilites.length - 1;
+	}
+    }
+}
@@ -16,10 +16,6 @@
  */
 package org.duckdns.spacedock.upengine.libupsystem;
 
-import java.util.Random;
-import org.duckdns.spacedock.commonutils.ErrorHandler;
-import org.duckdns.spacedock.commonutils.PropertiesHandler;
-
 /**
  * classe de méthodes statiques techniques effectuant la réalité des jets
  * nécessaires, seul endroit où les dés sont effectivement manipulés et les
@@ -31,21 +27,27 @@ public final class RollGenerator
 {
 
     /**
-     * Random seedé une fois à la première instanciation
+     * source d'aléa utilisée par les threads n'ayant pas lié leur propre
+     * source, par défaut ThreadLocalRandom afin qu'aucun état ne soit partagé
+     * entre threads
+     */
+    private volatile SourceAleatoire m_sourceParDefaut;
+    /**
+     * source d'aléa propre à un thread (ou à un combat simulé sur ce thread),
+     * prioritaire sur la source par défaut
      */
-    private final Random m_random;
+    private static final ThreadLocal<SourceAleatoire> m_sourceThread = new ThreadLocal<>();
     /**
      * instance unique de cet objet
      */
     private static volatile RollGenerator m_instance;
 
     /**
-     * véritable constructeur privé, permet de garantir le seedage unique du
-     * random
+     * véritable constructeur privé
      */
     private RollGenerator()
     {
-	m_random = new Random();
+	m_sourceParDefaut = SourceAleatoire.parThread();
     }
 
     /**
@@ -68,6 +70,65 @@ public final class RollGenerator
 	return (m_instance);
     }
 
+    /**
+     * remplace la source d'aléa utilisée par tous les threads n'ayant pas lié
+     * leur propre source
+     *
+     * @param p_source
+     */
+    public void setSourceParDefaut(SourceAleatoire p_source)
+    {
+	verifierSource(p_source);
+	m_sourceParDefaut = p_source;
+    }
+
+    /**
+     * lie une source d'aléa au thread courant : tous les jets effectués par ce
+     * thread l'utiliseront jusqu'à l'appel de delierSourceDuThread(). Permet
+     * des simulations reproductibles et sans contention entre threads.
+     *
+     * @param p_source
+     */
+    public static void lierSourceAuThread(SourceAleatoire p_source)
+    {
+	verifierSource(p_source);
+	m_sourceThread.set(p_source);
+    }
+
+    /**
+     * rend le thread courant à la source par défaut
+     */
+    public static void delierSourceDuThread()
+    {
+	m_sourceThread.remove();
+    }
+
+    /**
+     *
+     * @return la source d'aléa que le thread courant doit utiliser
+     */
+    private SourceAleatoire getSourceCourante()
+    {
+	SourceAleatoire result = m_sourceThread.get();
+	if (result == null)
+	{
+	    result = m_sourceParDefaut;
+	}
+	return result;
+    }
+
+    /**
+     *
+     * @param p_source
+     */
+    private static void verifierSource(SourceAleatoire p_source)
+    {
+	if (p_source == null)
+	{
+	    Validation.paramAberrant("source", p_source);
+	}
+    }
+
     /**
      *
      * @param p_ND
@@ -95,6 +156,72 @@ public final class RollGenerator
 	return result;
     }
 
+    /**
+     * version par lot de effectuerJet : effectue p_nbJets jets identiques et
+     * écrit leurs résultats dans les tableaux fournis par l'appelant. Aucune
+     * allocation n'a lieu par jet : le tableau de travail des dés gardés est
+     * alloué une fois pour tout le lot et la source d'aléa n'est résolue
+     * qu'une fois.
+     *
+     * @param p_nbJets
+     * @param p_ND
+     * @param p_nbLances
+     * @param p_nbGardes
+     * @param p_non_relance_dix
+     * @param p_modif le modificateur au score final
+     * @param p_scores reçoit les scores (modificateur compris), peut être null
+     * si l'appelant n'en a pas l'usage
+     * @param p_reussites reçoit la réussite de chaque jet, peut être null
+     * @param p_increments reçoit les incréments de chaque jet (zéro en cas
+     * d'échec), peut être null
+     * @return le nombre de jets réussis
+     */
+    public int effectuerJets(int p_nbJets, int p_ND, int p_nbLances, int p_nbGardes, boolean p_non_relance_dix, int p_modif, int[] p_scores, boolean[] p_reussites, int[] p_increments)
+    {//on ne vérifie pas le ND, il pourrait être négatif suite à des bonus divers
+	int result = 0;
+	if (p_nbJets >= 0 && (p_scores == null || p_scores.length >= p_nbJets) && (p_reussites == null || p_reussites.length >= p_nbJets) && (p_increments == null || p_increments.length >= p_nbJets))
+	{
+	    if (p_nbLances >= 0 && p_nbGardes >= 0)
+	    {
+		int lances = Math.max(p_nbLances, p_nbGardes);//inversion des dés lancés et gardés si nécessaire
+		int gardes = Math.min(p_nbLances, p_nbGardes);
+		int[] tableauGardes = new int[gardes];
+		SourceAleatoire source = getSourceCourante();
+
+		for (int i = 0; i < p_nbJets; ++i)
+		{
+		    int score = wnosort(source, lances, gardes, p_non_relance_dix, tableauGardes) + p_modif;
+		    boolean reussite = score >= p_ND;
+		    if (reussite)
+		    {
+			++result;
+		    }
+		    if (p_scores != null)
+		    {
+			p_scores[i] = score;
+		    }
+		    if (p_reussites != null)
+		    {
+			p_reussites[i] = reussite;
+		    }
+		    if (p_increments != null)
+		    {
+			p_increments[i] = reussite ? (score - p_ND) / 5 : 0;//division entre entiers donc troncature, comme dans effectuerJet
+		    }
+		}
+	    }
+	    else
+	    {
+		Validation.paramAberrant("lances", p_nbLances, "gardes", p_nbGardes);
+	    }
+	}
+	else
+	{
+	    Validation.paramAberrant("nbJets", p_nbJets);
+	}
+	return result;
+    }
+
     /**
      * méthode centrale du système de jeu : fait manipuler les dés et obtient
      * les résultats chiffrés
@@ -120,10 +247,7 @@ public final class RollGenerator
 	}
 	else
 	{
-	    String message = "";
-	    message = message.concat(PropertiesHandler.getInstance("libupsystem").getString("lances") + ":" + p_nbLances);
-	    message = message.concat(" " + PropertiesHandler.getInstance("libupsystem").getString("gardes") + ":" + p_nbGardes);
-	    ErrorHandler.paramAberrant(message);
+	    Validation.paramAberrant("lances", p_nbLances, "gardes", p_nbGardes);
 	}
 	return total;
     }
@@ -136,10 +260,22 @@ public final class RollGenerator
      */
     public int lancerDe(boolean p_non_relance_dix)
     {
-	int result = m_random.nextInt(10) + 1;
+	return lancerDe(getSourceCourante(), p_non_relance_dix);
+    }
+
+    /**
+     * lance un dé, éventuellement explosif, à partir d'une source déjà résolue
+     *
+     * @param p_source
+     * @param p_non_relance_dix
+     * @return
+     */
+    private static int lancerDe(SourceAleatoire p_source, boolean p_non_relance_dix)
+    {
+	int result = p_source.tirer(10) + 1;
 	while (!p_non_relance_dix && result == 10)
 	{
-	    result += m_random.nextInt(10) + 1;
+	    result += p_source.tirer(10) + 1;
 	}
 	return result;
     }
@@ -154,27 +290,48 @@ public final class RollGenerator
      * @return
      */
     private int wnosort(int p_nbLances, int p_nbGardes, boolean p_non_relance_dix)
+    {
+	return wnosort(getSourceCourante(), p_nbLances, p_nbGardes, p_non_relance_dix, new int[p_nbGardes]);
+    }
+
+    /**
+     * méthode qui traite effectivement les groupements de dés, les laissant et
+     * décidant lesquels garder, à partir d'un tableau de travail fourni afin de
+     * pouvoir le réutiliser d'un jet à l'autre
+     *
+     * @param p_source
+     * @param p_nbLances
+     * @param p_nbGardes
+     * @param p_non_relance_dix
+     * @param p_gardes tableau de travail d'au moins p_nbGardes cases, son
+     * contenu est écrasé
+     * @return
+     */
+    private static int wnosort(SourceAleatoire p_source, int p_nbLances, int p_nbGardes, boolean p_non_relance_dix, int[] p_gardes)
     {
 	int total = 0;
-	int[] gardes = new int[p_nbGardes];//automatiquement initialisé à zéro en java
+	for (int i = 0; i < p_nbGardes; ++i)
+	{
+	    p_gardes[i] = 0;
+	}
 	//lancement et traitement de chaque dé
 	for (int i = 0; i < (p_nbLances); i++)
 	{
-	    int deLance = lancerDe(p_non_relance_dix);
+	    int deLance = lancerDe(p_source, p_non_relance_dix);
 	    //vérification de si le dé doit être gardé
 
-	    for (int j = 0; (j < p_nbGardes && deLance > gardes[j]); ++j)
+	    for (int j = 0; (j < p_nbGardes && deLance > p_gardes[j]); ++j)
 	    {
 		if ((j - 1) >= 0)//on n'est pas au début du tableau des dés gardés et on peut donc inverser le dé actuellement considéré avec son prédecesseur
 		{
-		    gardes[j - 1] = gardes[j];
+		    p_gardes[j - 1] = p_gardes[j];
 		}
-		gardes[j] = deLance;//on tente d'insérer le nouveau dé à cette place avant un nouveau tour
+		p_gardes[j] = deLance;//on tente d'insérer le nouveau dé à cette place avant un nouveau tour
 	    }
 	}
-	for (int de : gardes)//somme des dés gardés
+	for (int i = 0; i < p_nbGardes; ++i)//somme des dés gardés
 	{
-	    total += de;
+	    total += p_gardes[i];
 	}
 	return total;
     }
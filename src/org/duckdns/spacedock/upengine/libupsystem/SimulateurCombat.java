@@ -0,0 +1,542 @@
+/*
+ * Copyright (C) 2017 ykonoclast
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.duckdns.spacedock.upengine.libupsystem;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import org.duckdns.spacedock.upengine.libupsystem.Arme.Degats;
+import org.duckdns.spacedock.upengine.libupsystem.RollGenerator.RollResult;
+
+/**
+ * moteur de simulation de masse de duels entre deux combattants décrits par
+ * des fabriques (chaque duel part de personnages et d'armes neufs). Les duels
+ * sont répartis sur un pool fork-join, chaque tâche feuille accumule ses
+ * statistiques localement et les accumulateurs sont fusionnés en remontant.
+ * Chaque duel dispose de son propre flux d'aléa dérivé de la graine et de son
+ * numéro : le résultat d'une simulation seedée ne dépend donc pas du
+ * découpage entre threads.
+ *
+ * @author ykonoclast
+ */
+public final class SimulateurCombat
+{
+
+    /**
+     * nombre de tours au delà duquel un duel est déclaré nul
+     */
+    public static final int NB_TOURS_MAX = 50;
+    /**
+     * largeur des tranches de l'histogramme des dégâts
+     */
+    public static final int LARGEUR_TRANCHE_DEGATS = 5;
+    /**
+     * nombre de tranches de l'histogramme des dégâts, la dernière recueille
+     * tous les dégâts au delà
+     */
+    public static final int NB_TRANCHES_DEGATS = 20;
+    /**
+     * nombre de duels en dessous duquel une tâche n'est plus subdivisée
+     */
+    private static final int SEUIL_DECOUPAGE = 64;
+    /**
+     * le premier combattant
+     */
+    private final Combattant m_combattant1;
+    /**
+     * le second combattant
+     */
+    private final Combattant m_combattant2;
+    /**
+     * distance séparant les combattants, utilisée par les armes à distance
+     */
+    private final int m_distance;
+    /**
+     * pool dans lequel les duels sont exécutés
+     */
+    private final ForkJoinPool m_pool;
+
+    /**
+     * constructeur utilisant le pool commun
+     *
+     * @param p_combattant1
+     * @param p_combattant2
+     * @param p_distance
+     */
+    public SimulateurCombat(Combattant p_combattant1, Combattant p_combattant2, int p_distance)
+    {
+	this(p_combattant1, p_combattant2, p_distance, ForkJoinPool.commonPool());
+    }
+
+    /**
+     *
+     * @param p_combattant1
+     * @param p_combattant2
+     * @param p_distance distance séparant les combattants, ignorée au corps à
+     * corps
+     * @param p_pool
+     */
+    public SimulateurCombat(Combattant p_combattant1, Combattant p_combattant2, int p_distance, ForkJoinPool p_pool)
+    {
+	//tout est contrôlé ici plutôt qu'au sein des tâches fork-join
+	if (p_combattant1 == null || p_combattant2 == null)
+	{
+	    Validation.paramAberrant("combattant", p_combattant1, "combattant", p_combattant2);
+	}
+	if (p_distance < 0)
+	{
+	    Validation.paramAberrant("distance", p_distance);
+	}
+	if (p_pool == null)
+	{
+	    Validation.paramAberrant("pool", p_pool);
+	}
+	//un premier engagement de chaque combattant contrôle ce que fournissent ses fabriques
+	new Engagement(p_combattant1);
+	new Engagement(p_combattant2);
+	m_combattant1 = p_combattant1;
+	m_combattant2 = p_combattant2;
+	m_distance = p_distance;
+	m_pool = p_pool;
+    }
+
+    /**
+     * simule des duels avec une graine tirée au hasard
+     *
+     * @param p_nbDuels
+     * @return les statistiques agrégées
+     */
+    public Statistiques simuler(int p_nbDuels)
+    {
+	return simuler(p_nbDuels, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * simule des duels de manière reproductible
+     *
+     * @param p_nbDuels
+     * @param p_graine
+     * @return les statistiques agrégées
+     */
+    public Statistiques simuler(int p_nbDuels, long p_graine)
+    {
+	Statistiques result = null;
+	if (p_nbDuels > 0)
+	{
+	    result = m_pool.invoke(new TacheDuels(0, p_nbDuels, p_graine));
+	}
+	else
+	{
+	    Validation.paramAberrant("nbDuels", p_nbDuels);
+	}
+	return result;
+    }
+
+    /**
+     * déroule un duel complet : à chaque tour les deux combattants lancent leur
+     * initiative puis, phase par phase, chacun utilise toutes ses actions de la
+     * phase pour attaquer l'autre (ou recharger)
+     *
+     * @param p_stats l'accumulateur du thread courant
+     */
+    private void executerDuel(Statistiques p_stats)
+    {
+	Engagement engagement1 = new Engagement(m_combattant1);
+	Engagement engagement2 = new Engagement(m_combattant2);
+	int vainqueur = 0;
+	int tour = 1;
+
+	while (vainqueur == 0 && tour <= NB_TOURS_MAX)
+	{
+	    engagement1.m_perso.genInit();
+	    engagement2.m_perso.genInit();
+	    for (int phase = 1; phase <= 10 && vainqueur == 0; ++phase)
+	    {
+		if (agirDansPhase(engagement1, engagement2, phase, p_stats))
+		{
+		    vainqueur = 1;
+		}
+		else
+		{
+		    if (agirDansPhase(engagement2, engagement1, phase, p_stats))
+		    {
+			vainqueur = 2;
+		    }
+		}
+	    }
+	    if (vainqueur == 0)
+	    {
+		++tour;
+	    }
+	}
+	p_stats.enregistrerDuel(vainqueur, tour);
+    }
+
+    /**
+     * fait utiliser à l'attaquant toutes ses actions de la phase. Chaque
+     * action est dépensée, qu'elle aboutisse à une attaque, à un échec
+     * automatique (cible hors de portée) ou à une partie du rechargement. La
+     * distance est fixe : un combattant de corps à corps ne peut atteindre une
+     * cible éloignée et perd ses actions.
+     *
+     * @param p_attaquant
+     * @param p_cible
+     * @param p_phase
+     * @param p_stats
+     * @return vrai si la cible est hors de combat
+     */
+    private boolean agirDansPhase(Engagement p_attaquant, Engagement p_cible, int p_phase, Statistiques p_stats)
+    {
+	boolean cibleHorsCombat = false;
+	Perso attaquant = p_attaquant.m_perso;
+	Arme arme = p_attaquant.m_arme;
+	int typeArme = (arme == null) ? 0 : arme.getTypeArme();//les mains nues sont de type 0
+
+	while (!cibleHorsCombat && attaquant.isActif(p_phase))
+	{
+	    RollResult jet = null;
+	    if (arme instanceof ArmeDist)
+	    {
+		ArmeDist armeDist = (ArmeDist) arme;
+		if (p_attaquant.m_actionsRechargeRestantes == 0 && armeDist.getMunCourantes() == 0)
+		{//le magasin est vide : il est rempli et le rechargement occupe autant d'actions que l'arme l'exige
+		    p_attaquant.m_actionsRechargeRestantes = Math.max(armeDist.recharger(armeDist.getTailleMAgasin()), 1);
+		}
+		if (p_attaquant.m_actionsRechargeRestantes > 0)
+		{//l'action est consacrée au rechargement
+		    attaquant.agirEnCombat(p_phase);
+		    --p_attaquant.m_actionsRechargeRestantes;
+		}
+		else
+		{
+		    int ND = p_cible.m_perso.getDefense(typeArme, 0, p_cible.m_armure);
+		    boolean aPortee = m_distance <= armeDist.getPortee();
+		    jet = attaquant.attaquerDist(p_phase, ND, m_distance, 1, armeDist);
+		    if (!aPortee)
+		    {//échec automatique : le tir est perdu mais l'action aussi
+			attaquant.agirEnCombat(p_phase);
+		    }
+		}
+	    }
+	    else
+	    {
+		if (m_distance > 0)
+		{//cible hors d'atteinte au corps à corps : l'action est perdue
+		    attaquant.agirEnCombat(p_phase);
+		}
+		else
+		{
+		    int ND = p_cible.m_perso.getDefense(typeArme, 0, p_cible.m_armure);
+		    jet = attaquant.attaquerCaC(p_phase, ND, (ArmeCaC) arme);
+		}
+	    }
+
+	    if (jet != null && jet.isJetReussi())
+	    {
+		Degats degats = attaquant.genererDegats(jet.getNbIncrements(), arme);
+		p_cible.m_perso.etreBlesse(degats, p_cible.m_armure);
+		p_stats.enregistrerDegats(degats.getQuantite());
+		EnsembleJauges.EtatVital etat = p_cible.m_perso.getEtatVital();
+		cibleHorsCombat = etat.isElimine() || etat.isInconscient();
+	    }
+	}
+	return cibleHorsCombat;
+    }
+
+    /**
+     * état d'un combattant au cours d'un duel
+     */
+    private static final class Engagement
+    {
+
+	private final Perso m_perso;
+	private final Arme m_arme;
+	private final Armure m_armure;
+	/**
+	 * nombre d'actions restant à consacrer au rechargement en cours
+	 */
+	private int m_actionsRechargeRestantes;
+
+	private Engagement(Combattant p_combattant)
+	{
+	    Perso perso = p_combattant.m_fabriquePerso.get();
+	    Arme arme = p_combattant.m_fabriqueArme.get();
+	    if (perso == null)
+	    {
+		Validation.paramAberrant("perso", perso);
+	    }
+	    if (arme != null && !(arme instanceof ArmeCaC) && !(arme instanceof ArmeDist))
+	    {//les mains nues sont représentées par null, toute autre arme doit être de corps à corps ou à distance
+		Validation.paramAberrant("arme", arme);
+	    }
+	    if (arme instanceof ArmeDist && ((ArmeDist) arme).getTailleMAgasin() <= 0)
+	    {//une arme sans magasin ne pourrait jamais être rechargée
+		Validation.paramAberrant("taillemagasin", ((ArmeDist) arme).getTailleMAgasin());
+	    }
+	    m_perso = perso;
+	    m_arme = arme;
+	    m_armure = p_combattant.m_armure;
+	}
+    }
+
+    /**
+     * tâche fork-join simulant une plage de duels
+     */
+    private final class TacheDuels extends RecursiveTask<Statistiques>
+    {
+
+	private static final long serialVersionUID = 1L;
+	private final int m_debut;
+	private final int m_fin;
+	private final long m_graine;
+
+	/**
+	 *
+	 * @param p_debut premier duel inclus
+	 * @param p_fin dernier duel exclu
+	 * @param p_graine
+	 */
+	private TacheDuels(int p_debut, int p_fin, long p_graine)
+	{
+	    m_debut = p_debut;
+	    m_fin = p_fin;
+	    m_graine = p_graine;
+	}
+
+	@Override
+	protected Statistiques compute()
+	{
+	    Statistiques result;
+	    if (m_fin - m_debut <= SEUIL_DECOUPAGE)
+	    {
+		result = new Statistiques();
+		try
+		{
+		    for (int i = m_debut; i < m_fin; ++i)
+		    {
+			RollGenerator.lierSourceAuThread(SourceAleatoire.xoroshiro(m_graine + i));
+			executerDuel(result);
+		    }
+		}
+		finally
+		{//les threads du pool sont réutilisés : on ne doit pas leur laisser notre source
+		    RollGenerator.delierSourceDuThread();
+		}
+	    }
+	    else
+	    {
+		int milieu = (m_debut + m_fin) >>> 1;
+		TacheDuels gauche = new TacheDuels(m_debut, milieu, m_graine);
+		gauche.fork();
+		result = new TacheDuels(milieu, m_fin, m_graine).compute();
+		result.fusionner(gauche.join());
+	    }
+	    return result;
+	}
+    }
+
+    /**
+     * description d'un combattant : des fabriques sont nécessaires car
+     * personnages et armes à distance portent un état modifié par le combat
+     */
+    public static final class Combattant
+    {
+
+	private final Supplier<Perso> m_fabriquePerso;
+	private final Supplier<? extends Arme> m_fabriqueArme;
+	private final Armure m_armure;
+
+	/**
+	 *
+	 * @param p_fabriquePerso
+	 * @param p_fabriqueArme doit fournir une ArmeCaC, une ArmeDist ou null
+	 * pour les mains nues
+	 * @param p_armure peut être null, n'est pas modifiée par le combat et est
+	 * donc partagée
+	 */
+	public Combattant(Supplier<Perso> p_fabriquePerso, Supplier<? extends Arme> p_fabriqueArme, Armure p_armure)
+	{
+	    if (p_fabriquePerso == null || p_fabriqueArme == null)
+	    {
+		Validation.paramAberrant("fabriquePerso", p_fabriquePerso, "fabriqueArme", p_fabriqueArme);
+	    }
+	    m_fabriquePerso = p_fabriquePerso;
+	    m_fabriqueArme = p_fabriqueArme;
+	    m_armure = p_armure;
+	}
+    }
+
+    /**
+     * accumulateur des résultats de duels, non thread-safe : chaque tâche
+     * feuille possède le sien
+     */
+    public static final class Statistiques
+    {
+
+	private int m_nbDuels;
+	private int m_victoires1;
+	private int m_victoires2;
+	private long m_totalTours;
+	/**
+	 * nombre de duels décidés, indicé par le nombre de tours nécessaires
+	 */
+	private final int[] m_histogrammeTours = new int[NB_TOURS_MAX + 1];
+	/**
+	 * nombre de coups portés, indicé par tranche de dégâts bruts
+	 */
+	private final int[] m_histogrammeDegats = new int[NB_TRANCHES_DEGATS];
+	private long m_nbCoups;
+	private long m_totalDegats;
+
+	private Statistiques()
+	{
+	}
+
+	/**
+	 *
+	 * @param p_vainqueur 1 ou 2, 0 pour un duel nul
+	 * @param p_nbTours
+	 */
+	private void enregistrerDuel(int p_vainqueur, int p_nbTours)
+	{
+	    ++m_nbDuels;
+	    if (p_vainqueur == 1)
+	    {
+		++m_victoires1;
+	    }
+	    if (p_vainqueur == 2)
+	    {
+		++m_victoires2;
+	    }
+	    if (p_vainqueur != 0)
+	    {
+		++m_histogrammeTours[p_nbTours];
+		m_totalTours += p_nbTours;
+	    }
+	}
+
+	/**
+	 *
+	 * @param p_quantite
+	 */
+	private void enregistrerDegats(int p_quantite)
+	{
+	    ++m_nbCoups;
+	    m_totalDegats += p_quantite;
+	    ++m_histogrammeDegats[Math.min(p_quantite / LARGEUR_TRANCHE_DEGATS, NB_TRANCHES_DEGATS - 1)];
+	}
+
+	/**
+	 * ajoute à cet accumulateur les résultats d'un autre
+	 *
+	 * @param p_autre
+	 */
+	private void fusionner(Statistiques p_autre)
+	{
+	    m_nbDuels += p_autre.m_nbDuels;
+	    m_victoires1 += p_autre.m_victoires1;
+	    m_victoires2 += p_autre.m_victoires2;
+	    m_totalTours += p_autre.m_totalTours;
+	    m_nbCoups += p_autre.m_nbCoups;
+	    m_totalDegats += p_autre.m_totalDegats;
+	    for (int i = 0; i < m_histogrammeTours.length; ++i)
+	    {
+		m_histogrammeTours[i] += p_autre.m_histogrammeTours[i];
+	    }
+	    for (int i = 0; i < m_histogrammeDegats.length; ++i)
+	    {
+		m_histogrammeDegats[i] += p_autre.m_histogrammeDegats[i];
+	    }
+	}
+
+	public int getNbDuels()
+	{
+	    return m_nbDuels;
+	}
+
+	/**
+	 *
+	 * @param p_combattant 1 ou 2
+	 * @return la proportion de duels remportés par ce combattant
+	 */
+	public double getTauxVictoire(int p_combattant)
+	{
+	    int victoires = (p_combattant == 1) ? m_victoires1 : m_victoires2;
+	    return (double) victoires / m_nbDuels;
+	}
+
+	public int getNbVictoires1()
+	{
+	    return m_victoires1;
+	}
+
+	public int getNbVictoires2()
+	{
+	    return m_victoires2;
+	}
+
+	/**
+	 *
+	 * @return le nombre de duels ayant atteint NB_TOURS_MAX sans vainqueur
+	 */
+	public int getNbNuls()
+	{
+	    return m_nbDuels - m_victoires1 - m_victoires2;
+	}
+
+	/**
+	 *
+	 * @return le nombre moyen de tours avant la mise hors de combat, sur les
+	 * duels décidés
+	 */
+	public double getToursMoyens()
+	{
+	    int decides = m_victoires1 + m_victoires2;
+	    return decides == 0 ? 0 : (double) m_totalTours / decides;
+	}
+
+	/**
+	 *
+	 * @return une copie de l'histogramme des duels décidés indicé par le
+	 * nombre de tours
+	 */
+	public int[] getHistogrammeTours()
+	{
+	    return m_histogrammeTours.clone();
+	}
+
+	/**
+	 *
+	 * @return une copie de l'histogramme des coups portés indicé par tranche
+	 * de LARGEUR_TRANCHE_DEGATS dégâts bruts
+	 */
+	public int[] getHistogrammeDegats()
+	{
+	    return m_histogrammeDegats.clone();
+	}
+
+	/**
+	 *
+	 * @return les dégâts bruts moyens par coup porté
+	 */
+	public double getDegatsMoyens()
+	{
+	    return m_nbCoups == 0 ? 0 : (double) m_totalDegats / m_nbCoups;
+	}
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2017 ykonoclast
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.duckdns.spacedock.upengine.libupsystem;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * abstraction de la source d'aléa utilisée par RollGenerator, permettant
+ * d'injecter des générateurs seedés (reproductibilité) ou scindables (un flux
+ * indépendant par thread ou par combat, sans contention entre threads)
+ *
+ * @author ykonoclast
+ */
+public interface SourceAleatoire
+{
+
+    /**
+     *
+     * @param p_borne strictement positive
+     * @return un entier uniforme entre 0 inclus et p_borne exclue
+     */
+    int tirer(int p_borne);
+
+    /**
+     *
+     * @return une nouvelle source statistiquement indépendante de celle-ci,
+     * destinée à être confiée à un autre thread ou à un autre combat
+     */
+    SourceAleatoire scinder();
+
+    /**
+     *
+     * @return la source par défaut : ThreadLocalRandom, sans état partagé
+     * entre threads mais non reproductible
+     */
+    static SourceAleatoire parThread()
+    {
+	return SourceThreadLocal.INSTANCE;
+    }
+
+    /**
+     *
+     * @param p_graine
+     * @return une source reproductible reposant sur SplittableRandom
+     */
+    static SourceAleatoire scindable(long p_graine)
+    {
+	return new SourceScindable(new SplittableRandom(p_graine));
+    }
+
+    /**
+     *
+     * @param p_graine
+     * @return une source reproductible reposant sur l'algorithme
+     * xoroshiro128+, très rapide et à l'état minimal
+     */
+    static SourceAleatoire xoroshiro(long p_graine)
+    {
+	return new SourceXoroshiro(p_graine);
+    }
+
+    /**
+     * source déléguant à ThreadLocalRandom : chaque thread dispose de son
+     * propre générateur, la scission est donc inutile
+     */
+    final class SourceThreadLocal implements SourceAleatoire
+    {
+
+	private static final SourceThreadLocal INSTANCE = new SourceThreadLocal();
+
+	private SourceThreadLocal()
+	{
+	}
+
+	@Override
+	public int tirer(int p_borne)
+	{
+	    return ThreadLocalRandom.current().nextInt(p_borne);
+	}
+
+	@Override
+	public SourceAleatoire scinder()
+	{
+	    return this;
+	}
+    }
+
+    /**
+     * source déléguant à SplittableRandom, non thread-safe : chaque flux ne
+     * doit être utilisé que par un seul thread à la fois
+     */
+    final class SourceScindable implements SourceAleatoire
+    {
+
+	private final SplittableRandom m_random;
+
+	private SourceScindable(SplittableRandom p_random)
+	{
+	    m_random = p_random;
+	}
+
+	@Override
+	public int tirer(int p_borne)
+	{
+	    return m_random.nextInt(p_borne);
+	}
+
+	@Override
+	public SourceAleatoire scinder()
+	{
+	    return new SourceScindable(m_random.split());
+	}
+    }
+
+    /**
+     * implémentation de xoroshiro128+ (Blackman et Vigna), l'état de 128 bits
+     * est initialisé à partir de la graine par splitmix64. Non thread-safe.
+     */
+    final class SourceXoroshiro implements SourceAleatoire
+    {
+
+	private long m_etat0;
+	private long m_etat1;
+
+	private SourceXoroshiro(long p_graine)
+	{
+	    long graine = p_graine;
+	    graine += 0x9E3779B97F4A7C15L;
+	    m_etat0 = melanger(graine);
+	    graine += 0x9E3779B97F4A7C15L;
+	    m_etat1 = melanger(graine);
+	    if (m_etat0 == 0 && m_etat1 == 0)
+	    {//l'état nul est un point fixe du générateur
+		m_etat1 = 1;
+	    }
+	}
+
+	/**
+	 * fonction de finalisation de splitmix64
+	 *
+	 * @param p_valeur
+	 * @return
+	 */
+	private static long melanger(long p_valeur)
+	{
+	    long z = p_valeur;
+	    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+	    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+	    return z ^ (z >>> 31);
+	}
+
+	/**
+	 *
+	 * @return les 64 bits suivants du flux
+	 */
+	private long suivant()
+	{
+	    long s0 = m_etat0;
+	    long s1 = m_etat1;
+	    long result = s0 + s1;
+	    s1 ^= s0;
+	    m_etat0 = Long.rotateLeft(s0, 24) ^ s1 ^ (s1 << 16);
+	    m_etat1 = Long.rotateLeft(s1, 37);
+	    return result;
+	}
+
+	@Override
+	public int tirer(int p_borne)
+	{//réduction par multiplication des 32 bits de poids fort (les bits faibles de xoroshiro128+ sont les moins bons), le biais est négligeable pour les petites bornes utilisées ici
+	    return (int) (((suivant() >>> 32) * p_borne) >>> 32);
+	}
+
+	@Override
+	public SourceAleatoire scinder()
+	{
+	    return new SourceXoroshiro(suivant());
+	}
+    }
+}
@@ -18,12 +18,16 @@ package org.duckdns.spacedock.upengine.libupsystem;
 
 import java.util.ArrayList;
 import java.util.EnumMap;
+import java.util.function.Function;
 import javax.json.JsonArray;
 import javax.json.JsonObject;
-import static org.duckdns.spacedock.commonutils.JSONHandler.loadJsonFile;
 
 /**
- * classe permettant l'accès aux éléments de référence concernant les armes
+ * classe permettant l'accès aux éléments de référence concernant les armes. Le
+ * catalogue des armes est compilé au chargement en colonnes de primitives
+ * indicées par l'identifiant d'arme : chaque consultation est une simple
+ * lecture de tableau. Les caractéristiques propres aux armes à distance valent
+ * 0 pour les armes de corps à corps.
  *
  * @author ykonoclast
  */
@@ -31,9 +35,53 @@ public class UPReferenceArmes
 {
 
     /**
-     * tableau contenant toutes les armes existant en jeu
+     * noms des armes
      */
-    private final JsonArray m_tabArmes;
+    private final String[] m_nomsArmes;
+    /**
+     * valeurs de dégâts des armes
+     */
+    private final int[] m_VDArmes;
+    /**
+     * bonus d'initiative des armes
+     */
+    private final int[] m_bonusInitArmes;
+    /**
+     * malus aux jets d'attaque des armes
+     */
+    private final int[] m_malusAttaqueArmes;
+    /**
+     * physiques minimaux des armes
+     */
+    private final int[] m_physMinArmes;
+    /**
+     * indices de catégorie des armes
+     */
+    private final int[] m_categoriesArmes;
+    /**
+     * indices de type des armes
+     */
+    private final int[] m_typesArmes;
+    /**
+     * modes d'attaque des armes
+     */
+    private final int[] m_modesArmes;
+    /**
+     * caractère à deux mains des armes
+     */
+    private final boolean[] m_armes2Mains;
+    /**
+     * portées des armes
+     */
+    private final int[] m_porteesArmes;
+    /**
+     * nombres d'actions de rechargement des armes
+     */
+    private final int[] m_actionsRechargeArmes;
+    /**
+     * tailles de magasin des armes
+     */
+    private final int[] m_magasinsArmes;
     /**
      * liste des libellés des catégories d'armes de corps à corps
      */
@@ -59,21 +107,50 @@ public class UPReferenceArmes
      * liste des libellés d'équilibrage d'arme
      */
     public final EnumMap<Arme.EquilibrageArme, String> m_listLblEquilibrage;
-    /**
-     * instance unique de cet objet
-     */
-    private static UPReferenceArmes m_instance;
 
     /**
-     * véritable constructeur privé effectuant tous les accès fichiers à
-     * l'instanciation afin de limiter les temps de latence à une grosse fois
+     * véritable constructeur effectuant tous les accès fichiers à
+     * l'instanciation afin de limiter les temps de latence à une grosse fois,
+     * appelé uniquement par RegistreReferences
+     *
+     * @param p_chargeur fournit le contenu d'un fichier JSON à partir de son
+     * chemin relatif au répertoire JSON de la bibliothèque
      */
-    private UPReferenceArmes()
+    UPReferenceArmes(Function<String, JsonObject> p_chargeur)
     {
 	JsonObject object;
 
-	object = loadJsonFile("libupsystem", "equipement/caracs_armes.json");
-	m_tabArmes = object.getJsonArray("armes");
+	object = p_chargeur.apply("equipement/caracs_armes.json");
+	JsonArray tabArmes = object.getJsonArray("armes");
+	int nbArmes = tabArmes.size();
+	m_nomsArmes = new String[nbArmes];
+	m_VDArmes = new int[nbArmes];
+	m_bonusInitArmes = new int[nbArmes];
+	m_malusAttaqueArmes = new int[nbArmes];
+	m_physMinArmes = new int[nbArmes];
+	m_categoriesArmes = new int[nbArmes];
+	m_typesArmes = new int[nbArmes];
+	m_modesArmes = new int[nbArmes];
+	m_armes2Mains = new boolean[nbArmes];
+	m_porteesArmes = new int[nbArmes];
+	m_actionsRechargeArmes = new int[nbArmes];
+	m_magasinsArmes = new int[nbArmes];
+	for (int i = 0; i < nbArmes; ++i)
+	{
+	    JsonObject arme = tabArmes.getJsonObject(i);
+	    m_nomsArmes[i] = arme.getString("nom");
+	    m_VDArmes[i] = arme.getInt("VD");
+	    m_bonusInitArmes[i] = arme.getInt("bonus_init");
+	    m_malusAttaqueArmes[i] = arme.getInt("malus_attaque");
+	    m_physMinArmes[i] = arme.getInt("physique_minimal");
+	    m_categoriesArmes[i] = arme.getInt("categorie");
+	    m_typesArmes[i] = arme.getInt("type");
+	    m_modesArmes[i] = arme.getInt("mode");
+	    m_armes2Mains[i] = arme.getBoolean("2mains");
+	    m_porteesArmes[i] = arme.getInt("portee", 0);//absent pour les armes de corps à corps
+	    m_actionsRechargeArmes[i] = arme.getInt("actions_recharge", 0);
+	    m_magasinsArmes[i] = arme.getInt("magasin", 0);
+	}
 	m_listLblTypArm = object.getJsonArray("types_armes");
 	m_listCatArmCaC = object.getJsonArray("cat_armes_cac");
 	m_listCatArmDist = object.getJsonArray("cat_armes_dist");
@@ -95,16 +172,12 @@ public class UPReferenceArmes
 
     /**
      *
-     * @return l'instance unique de la référence, la construit si elle n'existe
-     * pas
+     * @return l'instance de la référence publiée par RegistreReferences, la
+     * charge si elle n'existe pas
      */
     public static UPReferenceArmes getInstance()
     {
-	if (m_instance == null)
-	{
-	    m_instance = new UPReferenceArmes();
-	}
-	return (m_instance);
+	return RegistreReferences.getInstantane().getReferenceArmes();
     }
 
     /**
@@ -114,8 +187,7 @@ public class UPReferenceArmes
      */
     public int getBonusInitArme(int p_indice)
     {
-	JsonObject arme = m_tabArmes.getJsonObject(p_indice);
-	return arme.getInt("bonus_init");
+	return m_bonusInitArmes[p_indice];
     }
 
     /**
@@ -125,8 +197,7 @@ public class UPReferenceArmes
      */
     public int getCategorieArme(int p_indice)
     {
-	JsonObject arme = m_tabArmes.getJsonObject(p_indice);
-	return arme.getInt("categorie");
+	return m_categoriesArmes[p_indice];
     }
 
     /**
@@ -136,8 +207,7 @@ public class UPReferenceArmes
      */
     public String getLblArme(int p_indice)
     {
-	JsonObject arme = m_tabArmes.getJsonObject(p_indice);
-	return arme.getString("nom");
+	return m_nomsArmes[p_indice];
     }
 
     /**
@@ -206,9 +276,9 @@ public class UPReferenceArmes
     public ArrayList<String> getListArmes()
     {
 	ArrayList<String> res = new ArrayList<>();
-	for (int i = 0; i < m_tabArmes.size(); ++i)
+	for (String nom : m_nomsArmes)
 	{
-	    res.add(m_tabArmes.getJsonObject(i).getString("nom"));
+	    res.add(nom);
 	}
 	return res;
     }
@@ -236,7 +306,7 @@ public class UPReferenceArmes
      */
     public int getMagasinArme(int p_indice)
     {
-	return m_tabArmes.getJsonObject(p_indice).getInt("magasin");
+	return m_magasinsArmes[p_indice];
     }
 
     /**
@@ -246,8 +316,7 @@ public class UPReferenceArmes
      */
     public int getMalusAttaqueArme(int p_indice)
     {
-	JsonObject arme = m_tabArmes.getJsonObject(p_indice);
-	return arme.getInt("malus_attaque");
+	return m_malusAttaqueArmes[p_indice];
     }
 
     /**
@@ -257,7 +326,7 @@ public class UPReferenceArmes
      */
     public int getModArme(int p_indice)
     {
-	return m_tabArmes.getJsonObject(p_indice).getInt("mode");
+	return m_modesArmes[p_indice];
     }
 
     /**
@@ -268,7 +337,7 @@ public class UPReferenceArmes
      */
     public int getNbActionsRechargeArme(int p_indice)
     {
-	return m_tabArmes.getJsonObject(p_indice).getInt("actions_recharge");
+	return m_actionsRechargeArmes[p_indice];
     }
 
     /**
@@ -278,8 +347,7 @@ public class UPReferenceArmes
      */
     public int getVDArme(int p_indice)
     {
-	JsonObject arme = m_tabArmes.getJsonObject(p_indice);
-	return arme.getInt("VD");
+	return m_VDArmes[p_indice];
     }
 
     /**
@@ -289,7 +357,7 @@ public class UPReferenceArmes
      */
     public boolean isArme2Mains(int p_indice)
     {
-	return m_tabArmes.getJsonObject(p_indice).getBoolean("2mains");
+	return m_armes2Mains[p_indice];
     }
 
     /**
@@ -299,8 +367,7 @@ public class UPReferenceArmes
      */
     public int getPhysMinArme(int p_indice)
     {
-	JsonObject arme = m_tabArmes.getJsonObject(p_indice);
-	return arme.getInt("physique_minimal");
+	return m_physMinArmes[p_indice];
     }
 
     /**
@@ -311,7 +378,7 @@ public class UPReferenceArmes
      */
     public int getPorteeArme(int p_indice)
     {
-	return m_tabArmes.getJsonObject(p_indice).getInt("portee");
+	return m_porteesArmes[p_indice];
     }
 
     /**
@@ -321,7 +388,6 @@ public class UPReferenceArmes
      */
     public int getTypeArme(int p_indice)
     {
-	JsonObject arme = m_tabArmes.getJsonObject(p_indice);
-	return arme.getInt("type");
+	return m_typesArmes[p_indice];
     }
 }
@@ -17,9 +17,9 @@
 package org.duckdns.spacedock.upengine.libupsystem;
 
 import java.util.ArrayList;
+import java.util.function.Function;
 import javax.json.JsonArray;
 import javax.json.JsonObject;
-import static org.duckdns.spacedock.commonutils.JSONHandler.loadJsonFile;
 
 /**
  * classe peremttant l'accès aux éléments de référence concernant les armures
@@ -81,19 +81,47 @@ public class UPReferenceArmures
      */
     private final JsonArray m_tableArmureRedDegats;
     /**
-     * instance unique de cet objet
+     * nombre de types d'armes couverts par la table des ajustements
      */
-    private static UPReferenceArmures m_instance;
+    private final int m_nbTypesArmes;
+    /**
+     * nombre de types d'armures couverts par la table des ajustements
+     */
+    private final int m_nbTypesArmures;
+    /**
+     * nombre maximal de points d'armure couvert par les tables précalculées :
+     * au delà, quel que soit l'ajustement, le rang d'armure est saturé (un
+     * ajustement nul donnant toujours le rang minimal, il sature aussi)
+     */
+    private final int m_pointsMaxPrecalcules;
+    /**
+     * bonus au ND précalculés, indicés par
+     * ((typeArmure * nbTypesArmes) + typeArme) * (pointsMax + 1) + points
+     */
+    private final int[] m_tabBonusNDPrecalcules;
+    /**
+     * réductions de dégâts précalculées, même indexation que les bonus au ND
+     */
+    private final int[] m_tabRedDegatsPrecalcules;
+    /**
+     * rang d'armure indicé par les points d'armure, de 0 au seuil du dernier
+     * rang
+     */
+    private final int[] m_tabRangsPrecalcules;
 
     /**
-     * véritable constructeur privé effectuant tous les accès fichiers à
-     * l'instanciation afin de limiter les temps de latence à une grosse fois
+     * véritable constructeur effectuant tous les accès fichiers à
+     * l'instanciation afin de limiter les temps de latence à une grosse fois,
+     * appelé uniquement par RegistreReferences
+     *
+     * @param p_chargeur fournit le contenu d'un fichier JSON à partir de son
+     * chemin relatif au répertoire JSON de la bibliothèque
      */
-    private UPReferenceArmures()
+    UPReferenceArmures(Function<String, JsonObject> p_chargeur)
     {
 	JsonObject object;
 
-	object = loadJsonFile("libupsystem", "equipement/caracs_armures.json");
+	object = p_chargeur.apply("equipement/caracs_armures.json");
 	m_tableArmureBonusND = object.getJsonArray("bonusND");
 	m_tableArmureRedDegats = object.getJsonArray("red_degats");
 	m_tableArmureMalus = object.getJsonArray("malus_armure");
@@ -105,20 +133,61 @@ public class UPReferenceArmures
 	m_listLblTypArmures = object.getJsonArray("types_armures");
 	m_tabBoucliers = object.getJsonArray("boucliers");
 	m_listLblLoca = object.getJsonArray("localisations");
+
+	//aplatissement des tables en tableaux d'entiers consultés directement en combat
+	int seuilDernierRang = m_tableArmureRangs.getInt(m_tableArmureRangs.size() - 1);
+	m_tabRangsPrecalcules = new int[seuilDernierRang + 1];
+	for (int points = 0; points <= seuilDernierRang; ++points)
+	{
+	    m_tabRangsPrecalcules[points] = getRang(points);
+	}
+
+	m_nbTypesArmures = m_tableAjustementArmure.size();
+	m_nbTypesArmes = m_tableAjustementArmure.getJsonArray(0).size();
+	double coeffMin = Double.MAX_VALUE;
+	for (int i = 0; i < m_nbTypesArmures; ++i)
+	{
+	    JsonArray tabPourType = m_tableAjustementArmure.getJsonArray(i);
+	    for (int j = 0; j < m_nbTypesArmes; ++j)
+	    {
+		double coeff = tabPourType.getJsonNumber(j).doubleValue();
+		if (coeff > 0)
+		{
+		    coeffMin = Math.min(coeffMin, coeff);
+		}
+	    }
+	}
+	m_pointsMaxPrecalcules = (coeffMin == Double.MAX_VALUE) ? 0 : (int) Math.ceil((seuilDernierRang + 0.5) / coeffMin);
+	int taille = m_nbTypesArmures * m_nbTypesArmes * (m_pointsMaxPrecalcules + 1);
+	m_tabBonusNDPrecalcules = new int[taille];
+	m_tabRedDegatsPrecalcules = new int[taille];
+	int indice = 0;
+	for (int typeArmure = 0; typeArmure < m_nbTypesArmures; ++typeArmure)
+	{
+	    for (int typeArme = 0; typeArme < m_nbTypesArmes; ++typeArme)
+	    {
+		for (int points = 0; points <= m_pointsMaxPrecalcules; ++points)
+		{
+		    int rang = getRang(getPtsArmureEffectifs(points, typeArme, typeArmure));
+		    if (rang >= 0)
+		    {
+			m_tabBonusNDPrecalcules[indice] = m_tableArmureBonusND.getInt(rang);
+			m_tabRedDegatsPrecalcules[indice] = m_tableArmureRedDegats.getInt(rang);
+		    }
+		    ++indice;
+		}
+	    }
+	}
     }
 
     /**
      *
-     * @return l'instance unique de la référence, la construit si elle n'existe
-     * pas
+     * @return l'instance de la référence publiée par RegistreReferences, la
+     * charge si elle n'existe pas
      */
     public static UPReferenceArmures getInstance()
     {
-	if (m_instance == null)
-	{
-	    m_instance = new UPReferenceArmures();
-	}
-	return (m_instance);
+	return RegistreReferences.getInstantane().getReferenceArmures();
     }
 
     /**
@@ -130,14 +199,19 @@ public class UPReferenceArmures
      */
     public int getBonusND(int p_points, int p_typeArme, int p_typeArmure)
     {
-	int pointsEffectifs = getPtsArmureEffectifs(p_points, p_typeArme, p_typeArmure);
-
 	int resultat = 0;
-
-	int rang = getRang(pointsEffectifs);
-	if (rang >= 0)//impossible autrement si l'on est arrivé jusque là mais on ne sait jamais
+	int indice = getIndicePrecalcule(p_points, p_typeArme, p_typeArmure);
+	if (indice >= 0)
+	{//cas nominal : simple lecture de la table précalculée
+	    resultat = m_tabBonusNDPrecalcules[indice];
+	}
+	else
 	{
-	    resultat = m_tableArmureBonusND.getInt(rang);
+	    int rang = getRang(getPtsArmureEffectifs(p_points, p_typeArme, p_typeArmure));
+	    if (rang >= 0)
+	    {
+		resultat = m_tableArmureBonusND.getInt(rang);
+	    }
 	}
 	return resultat;
     }
@@ -151,18 +225,33 @@ public class UPReferenceArmures
      */
     public int getRedDegats(int p_points, int p_typeArme, int p_typeArmure)
     {
-	int pointsEffectifs = getPtsArmureEffectifs(p_points, p_typeArme, p_typeArmure);
-
 	int resultat = 0;
-
-	int rang = getRang(pointsEffectifs);
-	if (rang >= 0)//impossible autrment si l'on est arrivé jusque là mais on ne sait jamais
+	int indice = getIndicePrecalcule(p_points, p_typeArme, p_typeArmure);
+	if (indice >= 0)
+	{//cas nominal : simple lecture de la table précalculée
+	    resultat = m_tabRedDegatsPrecalcules[indice];
+	}
+	else
 	{
-	    resultat = m_tableArmureRedDegats.getInt(rang);
+	    int rang = getRang(getPtsArmureEffectifs(p_points, p_typeArme, p_typeArmure));
+	    if (rang >= 0)
+	    {
+		resultat = m_tableArmureRedDegats.getInt(rang);
+	    }
 	}
 	return resultat;
     }
 
+    /**
+     *
+     * @return le nombre de types d'armes pour lesquels les effets d'armure
+     * sont définis
+     */
+    public int getNbTypesArmes()
+    {
+	return m_nbTypesArmes;
+    }
+
     /**
      *
      * @param p_nbPoints
@@ -172,7 +261,7 @@ public class UPReferenceArmures
     {
 	int resultat = 0;
 
-	int rang = getRang(p_nbPoints);
+	int rang = getRangPrecalcule(p_nbPoints);
 	if (rang >= 0)//impossible autrment si l'on est arrivé jusque là mais on ne sait jamais
 	{
 	    resultat = m_tableArmureMalus.getInt(rang);
@@ -369,4 +458,44 @@ public class UPReferenceArmures
 	}
 	return (i);
     }
+
+    /**
+     *
+     * @param p_points
+     * @return le rang d'armure lu dans la table précalculée, calculé par
+     * getRang() pour les points négatifs
+     */
+    private int getRangPrecalcule(int p_points)
+    {
+	int result;
+	if (p_points >= 0)
+	{
+	    result = m_tabRangsPrecalcules[Math.min(p_points, m_tabRangsPrecalcules.length - 1)];//au delà du dernier seuil le rang est saturé
+	}
+	else
+	{
+	    result = getRang(p_points);
+	}
+	return result;
+    }
+
+    /**
+     *
+     * @param p_points
+     * @param p_typeArme
+     * @param p_typeArmure
+     * @return l'indice dans les tables précalculées ou -1 si les paramètres
+     * sortent de celles-ci (le calcul complet est alors effectué, avec ses
+     * éventuelles erreurs d'indice). Au delà de m_pointsMaxPrecalcules les
+     * effets sont saturés et on lit donc la dernière case.
+     */
+    private int getIndicePrecalcule(int p_points, int p_typeArme, int p_typeArmure)
+    {
+	int result = -1;
+	if (p_points >= 0 && p_typeArme >= 0 && p_typeArme < m_nbTypesArmes && p_typeArmure >= 0 && p_typeArmure < m_nbTypesArmures)
+	{
+	    result = ((p_typeArmure * m_nbTypesArmes) + p_typeArme) * (m_pointsMaxPrecalcules + 1) + Math.min(p_points, m_pointsMaxPrecalcules);
+	}
+	return result;
+    }
 }
@@ -17,10 +17,12 @@
 package org.duckdns.spacedock.upengine.libupsystem;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumMap;
+import java.util.List;
+import java.util.function.Function;
 import javax.json.JsonArray;
 import javax.json.JsonObject;
-import static org.duckdns.spacedock.commonutils.JSONHandler.loadJsonFile;
 import org.duckdns.spacedock.upengine.libupsystem.GroupeTraits.Trait;
 import static org.duckdns.spacedock.upengine.libupsystem.GroupeTraits.Trait.COORDINATION;
 import static org.duckdns.spacedock.upengine.libupsystem.GroupeTraits.Trait.MENTAL;
@@ -77,20 +79,30 @@ public final class UPReferenceSysteme
      */
     public final EnumMap<Trait, String> m_listLblTrait;
     /**
-     * instance unique de cet objet
+     * libellés des domaines, calculés une fois pour toutes
      */
-    private static UPReferenceSysteme m_instance;
+    private final List<String> m_listDomaines;
+    /**
+     * libellés des compétences de chaque domaine, calculés une fois par
+     * instantané de références (ceux des domaines de combat dépendent de la
+     * référence des armes) : null tant qu'ils ne l'ont pas été
+     */
+    private volatile List<List<String>> m_listesComp;
 
     /**
-     * véritable constructeur privé effectuant tous les accès fichiers à
-     * l'instanciation afin de limiter les temps de latence à une grosse fois
+     * véritable constructeur effectuant tous les accès fichiers à
+     * l'instanciation afin de limiter les temps de latence à une grosse fois,
+     * appelé uniquement par RegistreReferences
+     *
+     * @param p_chargeur fournit le contenu d'un fichier JSON à partir de son
+     * chemin relatif au répertoire JSON de la bibliothèque
      */
-    private UPReferenceSysteme()
+    UPReferenceSysteme(Function<String, JsonObject> p_chargeur)
     {
 	JsonObject object;
 
 	//chargement des règles de calcul de l'initiative
-	object = loadJsonFile("libupsystem", "tables_systeme/tab_sys.json");
+	object = p_chargeur.apply("tables_systeme/tab_sys.json");
 	m_tableInitCoord = object.getJsonObject("init").getJsonArray("coordination");
 	m_tableInitMental = object.getJsonObject("init").getJsonArray("mental");
 	JsonArray nDarray = object.getJsonArray("ND");
@@ -106,7 +118,7 @@ public final class UPReferenceSysteme
 	}
 
 	//chargement des libellés des caractéristiques particulières
-	object = loadJsonFile("libupsystem", "tables_systeme/tab_caracs.json");
+	object = p_chargeur.apply("tables_systeme/tab_caracs.json");
 	m_lblCompAttaque = object.getString("lbl_attaque");
 	m_lblCompParade = object.getString("lbl_parade");
 	m_lblCompMetier = object.getString("lbl_metier");
@@ -122,24 +134,26 @@ public final class UPReferenceSysteme
 
 	//chargement de l'arbre des domaines et competences
 	m_arbreDomaines = object.getJsonArray("arbre_domaines");
+	ArrayList<String> listDomaines = new ArrayList<>(m_arbreDomaines.size());
+	for (int j = 0; j < m_arbreDomaines.size(); ++j)
+	{
+	    listDomaines.add(m_arbreDomaines.getJsonObject(j).getString("lbl"));
+	}
+	m_listDomaines = Collections.unmodifiableList(listDomaines);
 
 	//chargement des libellés divers
-	object = loadJsonFile("libupsystem", "tables_systeme/tab_libelles.json");
+	object = p_chargeur.apply("tables_systeme/tab_libelles.json");
 	m_collectionLibelles = new CollectionLibelles(object);
     }
 
     /**
      *
-     * @return l'instance unique de la référence, la construit si elle n'existe
-     * pas
+     * @return l'instance de la référence publiée par RegistreReferences, la
+     * charge si elle n'existe pas
      */
     public static UPReferenceSysteme getInstance()
     {
-	if (m_instance == null)
-	{
-	    m_instance = new UPReferenceSysteme();
-	}
-	return (m_instance);
+	return RegistreReferences.getInstantane().getReferenceSysteme();
     }
 
     /**
@@ -205,60 +219,110 @@ public final class UPReferenceSysteme
      * avec size()
      *
      * @param p_indice
-     * @return la liste des libellés des compétences d'un domaine donné par son
-     * indice
+     * @return une copie modifiable de la liste des libellés des compétences
+     * d'un domaine donné par son indice
      */
     public ArrayList<String> getListComp(int p_indice)
     {
-	ArrayList<String> res = new ArrayList<>();
-	UPReferenceArmes reference = UPReferenceArmes.getInstance();
+	return new ArrayList<>(getVueComp(p_indice));
+    }
 
-	if (p_indice == 3)//domaine corps à corps : on renvoie la liste des catégories d'armes de corps à corps dédoublée en parade et attaque
-	{
-	    ArrayList<String> listCaC = reference.getListCatArmeCaC();
-	    for (int i = 0; i < listCaC.size(); ++i)
-	    {//on préfixe les compétences d'attaque et de parade puis on les suffixe de la catégorie
-		res.add(m_collectionLibelles.attaque + " " + listCaC.get(i));
-		res.add(m_collectionLibelles.parade + " " + listCaC.get(i));
-	    }
+    /**
+     *
+     * @param p_indice
+     * @return la liste partagée et non modifiable des libellés des
+     * compétences d'un domaine donné par son indice
+     */
+    public List<String> getVueComp(int p_indice)
+    {
+	List<List<String>> listes = m_listesComp;
+	if (listes == null)
+	{//référence construite hors de RegistreReferences : on se rabat sur la référence des armes publiée
+	    listes = calculerListesComp(UPReferenceArmes.getInstance());
 	}
-	else
+	return listes.get(p_indice);
+    }
+
+    /**
+     *
+     * @param p_indice
+     * @return le nombre de compétences du domaine donné par son indice
+     */
+    public int getNbComp(int p_indice)
+    {
+	return getVueComp(p_indice).size();
+    }
+
+    /**
+     * calcule et mémorise les libellés des compétences de tous les domaines,
+     * appelé par RegistreReferences avant de publier l'instantané
+     *
+     * @param p_referenceArmes la référence des armes du même instantané
+     * @return les listes calculées
+     */
+    List<List<String>> calculerListesComp(UPReferenceArmes p_referenceArmes)
+    {
+	ArrayList<List<String>> listes = new ArrayList<>(m_arbreDomaines.size());
+	for (int indice = 0; indice < m_arbreDomaines.size(); ++indice)
 	{
-	    if (p_indice == 4)//domaine combat à distance : on renvoie la liste des catégories d'armes à distance
+	    ArrayList<String> res = new ArrayList<>();
+	    if (indice == 3)//domaine corps à corps : on renvoie la liste des catégories d'armes de corps à corps dédoublée en parade et attaque
 	    {
-		ArrayList<String> listDist = reference.getListCatArmeDist();
-		for (int i = 0; i < reference.getListCatArmeDist().size(); ++i)
-		{
-		    res.add(listDist.get(i));
+		ArrayList<String> listCaC = p_referenceArmes.getListCatArmeCaC();
+		for (int i = 0; i < listCaC.size(); ++i)
+		{//on préfixe les compétences d'attaque et de parade puis on les suffixe de la catégorie
+		    res.add(m_collectionLibelles.attaque + " " + listCaC.get(i));
+		    res.add(m_collectionLibelles.parade + " " + listCaC.get(i));
 		}
 	    }
 	    else
 	    {
-		JsonObject domaine = m_arbreDomaines.getJsonObject(p_indice);
-		JsonArray tabComp = domaine.getJsonArray("comps");
-
-		for (int i = 0; i < tabComp.size(); ++i)
+		if (indice == 4)//domaine combat à distance : on renvoie la liste des catégories d'armes à distance
+		{
+		    res.addAll(p_referenceArmes.getListCatArmeDist());
+		}
+		else
 		{
-		    res.add(tabComp.getString(i));
+		    JsonArray tabComp = m_arbreDomaines.getJsonObject(indice).getJsonArray("comps");
+		    for (int i = 0; i < tabComp.size(); ++i)
+		    {
+			res.add(tabComp.getString(i));
+		    }
 		}
 	    }
+	    listes.add(Collections.unmodifiableList(res));
 	}
-	return res;
+	List<List<String>> result = Collections.unmodifiableList(listes);
+	m_listesComp = result;
+	return result;
     }
 
     /**
      *
-     * @return la liste complète des domaines, peut être plus prosaïquement
-     * utilisé pour connaître leur nombre total
+     * @return une copie modifiable de la liste complète des domaines, peut
+     * être plus prosaïquement utilisé pour connaître leur nombre total
      */
     public ArrayList<String> getListDomaines()
     {
-	ArrayList<String> res = new ArrayList<>();
-	for (int i = 0; i < m_arbreDomaines.size(); ++i)
-	{
-	    res.add(m_arbreDomaines.getJsonObject(i).getString("lbl"));
-	}
-	return res;
+	return new ArrayList<>(m_listDomaines);
+    }
+
+    /**
+     *
+     * @return la liste partagée et non modifiable des domaines
+     */
+    public List<String> getVueDomaines()
+    {
+	return m_listDomaines;
+    }
+
+    /**
+     *
+     * @return le nombre de domaines
+     */
+    public int getNbDomaines()
+    {
+	return m_listDomaines.size();
     }
 
     /**
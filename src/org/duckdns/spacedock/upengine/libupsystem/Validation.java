@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2017 ykonoclast
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.duckdns.spacedock.upengine.libupsystem;
+
+import java.util.concurrent.ConcurrentHashMap;
+import org.duckdns.spacedock.commonutils.ErrorHandler;
+import org.duckdns.spacedock.commonutils.PropertiesHandler;
+
+/**
+ * couche de validation commune : les libellés localisés des paramétres ne
+ * sont lus qu'une fois dans les propriétés puis mémorisés, et les messages ne
+ * sont mis en forme qu'au moment où l'erreur est effectivement signalée. Elle
+ * porte aussi le mode optionnel "entrées fiables" qui permet aux méthodes
+ * internes de ne pas revérifier des valeurs déjà contrôlées par le point
+ * d'entrée public de la chaîne d'appel.
+ *
+ * @author ykonoclast
+ */
+public final class Validation
+{
+
+    /**
+     * libellés déjà résolus, par clé
+     */
+    private static final ConcurrentHashMap<String, String> m_libelles = new ConcurrentHashMap<>();
+    /**
+     * mode "entrées fiables" : si vrai, les méthodes internes ne revérifient
+     * plus les valeurs déjà contrôlées par le point d'entrée public de la
+     * chaîne d'appel (les points d'entrée publics continuent de tout vérifier).
+     * Désactivé par défaut, il s'active au lancement de la JVM par la
+     * propriété système libupsystem.entreesFiables=true ; étant constant, le
+     * contrôle omis disparaît entièrement du code compilé à la volée.
+     */
+    static final boolean ENTREES_FIABLES = Boolean.getBoolean("libupsystem.entreesFiables");
+
+    /**
+     * classe purement statique
+     */
+    private Validation()
+    {
+    }
+
+    /**
+     *
+     * @return si le mode "entrées fiables" est actif
+     */
+    public static boolean isEntreesFiables()
+    {
+	return ENTREES_FIABLES;
+    }
+
+    /**
+     *
+     * @param p_cle
+     * @return le libellé localisé associé à la clé, lu une seule fois dans les
+     * propriétés
+     */
+    static String getLibelle(String p_cle)
+    {
+	String result = m_libelles.get(p_cle);
+	if (result == null)
+	{
+	    result = PropertiesHandler.getInstance("libupsystem").getString(p_cle);
+	    m_libelles.putIfAbsent(p_cle, result);
+	}
+	return result;
+    }
+
+    /**
+     * signale un paramétre aberrant
+     *
+     * @param p_cle la clé du libellé du paramétre
+     * @param p_valeur
+     */
+    static void paramAberrant(String p_cle, Object p_valeur)
+    {
+	ErrorHandler.paramAberrant(getLibelle(p_cle) + ":" + p_valeur);
+    }
+
+    /**
+     * signale un couple de paramétres aberrants
+     *
+     * @param p_cle1
+     * @param p_valeur1
+     * @param p_cle2
+     * @param p_valeur2
+     */
+    static void paramAberrant(String p_cle1, Object p_valeur1, String p_cle2, Object p_valeur2)
+    {
+	ErrorHandler.paramAberrant(getLibelle(p_cle1) + ":" + p_valeur1 + " " + getLibelle(p_cle2) + ":" + p_valeur2);
+    }
+
+    /**
+     * signale un ensemble de paramétres aberrants
+     *
+     * @param p_clesValeurs alternance de clés de libellés et de valeurs
+     */
+    static void paramsAberrants(Object... p_clesValeurs)
+    {
+	StringBuilder message = new StringBuilder();
+	for (int i = 0; i + 1 < p_clesValeurs.length; i += 2)
+	{
+	    if (i > 0)
+	    {
+		message.append(' ');
+	    }
+	    message.append(getLibelle((String) p_clesValeurs[i])).append(':').append(p_clesValeurs[i + 1]);
+	}
+	ErrorHandler.paramAberrant(message.toString());
+    }
+
+    /**
+     * signale l'emploi d'une méthode inadaptée au contexte
+     *
+     * @param p_cle la clé du libellé du paramétre concerné
+     * @param p_valeur
+     */
+    static void mauvaiseMethode(String p_cle, Object p_valeur)
+    {
+	ErrorHandler.mauvaiseMethode(getLibelle(p_cle) + ":" + p_valeur);
+    }
+}
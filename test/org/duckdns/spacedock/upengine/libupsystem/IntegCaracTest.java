@@ -125,4 +125,44 @@ public class IntegCaracTest
 	Assert.assertEquals(2, persoNonRM.getRangDomaine(2));
 	Assert.assertEquals("élevage de stylos bic en liberté", persoNonRM.getSpecialites(2, 2).get(0));
     }
+
+    @Test
+    public void testCopieSurEcriture()
+    {
+	//deux PNJ du même rang partagent l'arbre de leur gabarit, la modification de l'un ne touche ni l'autre ni le gabarit
+	Perso autreRM3 = new Perso(3);
+	persoRM3.setRangComp(3, 0, 2);
+	persoRM3.addSpecialite(3, 0, "escrime au parapluie");
+	Assert.assertEquals(2, persoRM3.getRangComp(3, 0));
+	Assert.assertEquals(1, persoRM3.getSpecialites(3, 0).size());
+	Assert.assertEquals(4, autreRM3.getRangComp(3, 0));
+	Assert.assertTrue(autreRM3.getSpecialites(3, 0).isEmpty());
+	Assert.assertEquals(4, new Perso(3).getRangComp(3, 0));
+
+	//seul le chemin modifié a été recopié, le reste de l'arbre est intact
+	Assert.assertEquals(4, persoRM3.getRangComp(3, 1));
+	Assert.assertEquals(4, persoRM3.getRangComp(4, 0));
+
+	//une copie d'arbre modifiable reste indépendante de son modèle dans les deux sens
+	ArbreDomaines modele = new ArbreDomaines();
+	modele.setRangDomaine(2, 3);
+	ArbreDomaines copie = modele.copier();
+	copie.setRangComp(2, 1, 2);
+	modele.setRangComp(2, 1, 3);
+	Assert.assertEquals(2, copie.getRangComp(2, 1));
+	Assert.assertEquals(3, modele.getRangComp(2, 1));
+	Assert.assertEquals(3, copie.getRangDomaine(2));
+
+	//un arbre figé refuse les modifications
+	try
+	{
+	    modele.figer().setRangDomaine(2, 4);
+	    Assert.fail();
+	}
+	catch (IllegalStateException e)
+	{
+	    Assert.assertEquals("emploi de la mauvaise méthode dans ce contexte:domaine:2", e.getMessage());
+	}
+	Assert.assertEquals(3, modele.getRangDomaine(2));
+    }
 }
@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2017 ykonoclast
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.duckdns.spacedock.upengine.libupsystem;
+
+import org.duckdns.spacedock.upengine.libupsystem.Arme.Degats;
+import org.junit.Assert;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ *
+ * @author ykonoclast
+ */
+public class IntegResolutionDegatsTest
+{
+
+    private static final int NB_COUPS = 60;
+
+    @Test
+    public void testEquivalenceCoupParCoup()
+    {
+	Perso[] attaquants = new Perso[NB_COUPS];
+	int[] increments = new int[NB_COUPS];
+	Arme[] armes = new Arme[NB_COUPS];
+	Armure[] armures = new Armure[NB_COUPS];
+	Perso[] defenseursLot = new Perso[NB_COUPS];
+	Perso[] defenseursUnitaires = new Perso[NB_COUPS];
+	Arme epee = new ArmeCaC(8, Arme.QualiteArme.moyenne, Arme.EquilibrageArme.normal);
+	Armure armure = new Armure(12, 1);
+	for (int i = 0; i < NB_COUPS; ++i)
+	{//mélange de mains nues, d'armes, d'armures et de cibles touchées plusieurs fois
+	    attaquants[i] = new Perso(1 + i % 5);
+	    increments[i] = i % 4;
+	    armes[i] = (i % 3 == 0) ? null : epee;
+	    armures[i] = (i % 2 == 0) ? armure : null;
+	}
+	for (int i = 0; i < NB_COUPS; ++i)
+	{
+	    defenseursLot[i] = (i % 7 == 0) ? new Perso(3) : defenseursLot[i - 1];
+	    defenseursUnitaires[i] = (i % 7 == 0) ? new Perso(3) : defenseursUnitaires[i - 1];
+	}
+
+	int[] bruts = new int[NB_COUPS];
+	int[] effectifs = new int[NB_COUPS];
+	try
+	{
+	    RollGenerator.lierSourceAuThread(SourceAleatoire.xoroshiro(42));
+	    int nbTouches = ResolutionDegats.resoudre(NB_COUPS, attaquants, increments, armes, defenseursLot, armures, bruts, effectifs);
+
+	    RollGenerator.lierSourceAuThread(SourceAleatoire.xoroshiro(42));
+	    int nbTouchesUnitaires = 0;
+	    for (int i = 0; i < NB_COUPS; ++i)
+	    {
+		Degats degats = attaquants[i].genererDegats(increments[i], armes[i]);
+		Assert.assertEquals(degats.getQuantite(), bruts[i]);
+		int attendu = (armures[i] == null) ? degats.getQuantite() : degats.getQuantite() - armures[i].getRedDegats(degats.getTypeArme());
+		Assert.assertEquals(attendu, effectifs[i]);
+		if (attendu > 0)
+		{
+		    ++nbTouchesUnitaires;
+		}
+		defenseursUnitaires[i].etreBlesse(degats, armures[i]);
+	    }
+	    Assert.assertEquals(nbTouchesUnitaires, nbTouches);
+	}
+	finally
+	{
+	    RollGenerator.delierSourceDuThread();
+	}
+
+	for (int i = 0; i < NB_COUPS; i += 7)
+	{//mêmes jets d'encaissement dans le même ordre : mêmes jauges
+	    EnsembleJauges.EtatVital etatLot = defenseursLot[i].getEtatVital();
+	    EnsembleJauges.EtatVital etatUnitaire = defenseursUnitaires[i].getEtatVital();
+	    Assert.assertEquals(etatUnitaire.getPointsDegatsPhysiques(), etatLot.getPointsDegatsPhysiques());
+	    Assert.assertEquals(etatUnitaire.getSante(), etatLot.getSante());
+	    Assert.assertEquals(etatUnitaire.isInconscient(), etatLot.isInconscient());
+	    Assert.assertEquals(etatUnitaire.isElimine(), etatLot.isElimine());
+	}
+    }
+
+    @Test
+    public void testErreur()
+    {
+	Perso[] attaquants =
+	{
+	    new Perso(2), new Perso(2)
+	};
+	Perso[] defenseurs =
+	{
+	    new Perso(2), new Perso(2)
+	};
+
+	//incréments négatifs : aucun coup n'est appliqué
+	try
+	{
+	    ResolutionDegats.resoudre(2, attaquants, new int[]
+	    {
+		1, -1
+	    }, null, defenseurs, null, null, null);
+	    fail();
+	}
+	catch (IllegalArgumentException e)
+	{
+	    Assert.assertEquals("paramétre aberrant:incréments:-1", e.getMessage());
+	}
+	Assert.assertEquals(0, defenseurs[0].getEtatVital().getPointsDegatsPhysiques());
+
+	//tableaux trop courts
+	try
+	{
+	    ResolutionDegats.resoudre(3, attaquants, new int[3], null, defenseurs, null, null, null);
+	    fail();
+	}
+	catch (IllegalArgumentException e)
+	{
+	    Assert.assertEquals("paramétre aberrant:nombre de coups:3 attaquants:2", e.getMessage());
+	}
+	try
+	{
+	    ResolutionDegats.resoudre(2, attaquants, new int[2], null, defenseurs, new Armure[1], null, null);
+	    fail();
+	}
+	catch (IllegalArgumentException e)
+	{
+	    Assert.assertEquals("paramétre aberrant:nombre de coups:2 armures:1", e.getMessage());
+	}
+
+	//tableau obligatoire absent
+	try
+	{
+	    ResolutionDegats.resoudre(2, attaquants, new int[2], null, null, null, null, null);
+	    fail();
+	}
+	catch (IllegalArgumentException e)
+	{
+	    Assert.assertEquals("paramétre aberrant:nombre de coups:2 défenseurs:null", e.getMessage());
+	}
+
+	//défenseur absent après un coup valide : le premier coup n'est pas appliqué non plus
+	try
+	{
+	    ResolutionDegats.resoudre(2, attaquants, new int[]
+	    {
+		10, 10
+	    }, null, new Perso[]
+	    {
+		defenseurs[0], null
+	    }, null, null, null);
+	    fail();
+	}
+	catch (IllegalArgumentException e)
+	{
+	    Assert.assertTrue(e.getMessage().endsWith("défenseurs:null"));
+	}
+	Assert.assertEquals(0, defenseurs[0].getEtatVital().getPointsDegatsPhysiques());
+	Assert.assertEquals(0, defenseurs[0].getEtatVital().getBlessures());
+    }
+}
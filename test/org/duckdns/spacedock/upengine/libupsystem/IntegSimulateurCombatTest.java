@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2017 ykonoclast
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.duckdns.spacedock.upengine.libupsystem;
+
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Assert;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ *
+ * @author ykonoclast
+ */
+public class IntegSimulateurCombatTest
+{
+
+    @Test
+    public void testSimuler()
+    {
+	SimulateurCombat.Combattant fort = new SimulateurCombat.Combattant(() -> new Perso(5), () -> new ArmeCaC(8, Arme.QualiteArme.moyenne, Arme.EquilibrageArme.normal), new Armure(12, 1));
+	SimulateurCombat.Combattant faible = new SimulateurCombat.Combattant(() -> new Perso(1), () -> null, null);
+
+	SimulateurCombat.Statistiques stats = new SimulateurCombat(fort, faible, 0).simuler(500, 42);
+	Assert.assertEquals(500, stats.getNbDuels());
+	Assert.assertEquals(500, stats.getNbVictoires1() + stats.getNbVictoires2() + stats.getNbNuls());
+	Assert.assertTrue(stats.getTauxVictoire(1) > 0.9);
+	Assert.assertTrue(stats.getToursMoyens() >= 1);
+	int total = 0;
+	for (int nb : stats.getHistogrammeTours())
+	{
+	    total += nb;
+	}
+	Assert.assertEquals(stats.getNbVictoires1() + stats.getNbVictoires2(), total);
+	Assert.assertTrue(stats.getDegatsMoyens() > 0);
+
+	//à distance, le fusil recharge de lui-même
+	SimulateurCombat.Combattant tireur = new SimulateurCombat.Combattant(() -> new Perso(3), () -> new ArmeDist(44, Arme.QualiteArme.moyenne, Arme.EquilibrageArme.normal), null);
+	SimulateurCombat.Statistiques statsDist = new SimulateurCombat(tireur, faible, 100).simuler(200, 7);
+	Assert.assertEquals(200, statsDist.getNbDuels());
+	Assert.assertTrue(statsDist.getTauxVictoire(1) > 0.5);
+    }
+
+    @Test
+    public void testReproductibilite()
+    {//même graine : mêmes résultats quel que soit le parallélisme
+	SimulateurCombat.Combattant combattant = new SimulateurCombat.Combattant(() -> new Perso(3), () -> new ArmeCaC(8, Arme.QualiteArme.moyenne, Arme.EquilibrageArme.normal), null);
+
+	ForkJoinPool pool1 = new ForkJoinPool(1);
+	ForkJoinPool pool4 = new ForkJoinPool(4);
+	SimulateurCombat.Statistiques stats1;
+	SimulateurCombat.Statistiques stats4;
+	try
+	{
+	    stats1 = new SimulateurCombat(combattant, combattant, 0, pool1).simuler(300, 123);
+	    stats4 = new SimulateurCombat(combattant, combattant, 0, pool4).simuler(300, 123);
+	}
+	finally
+	{
+	    pool1.shutdown();
+	    pool4.shutdown();
+	}
+	Assert.assertEquals(stats1.getNbVictoires1(), stats4.getNbVictoires1());
+	Assert.assertEquals(stats1.getNbVictoires2(), stats4.getNbVictoires2());
+	Assert.assertArrayEquals(stats1.getHistogrammeTours(), stats4.getHistogrammeTours());
+	Assert.assertArrayEquals(stats1.getHistogrammeDegats(), stats4.getHistogrammeDegats());
+    }
+
+    @Test
+    public void testActionsPerdues()
+    {//au-delà de la portée ou hors d'atteinte au corps à corps, les actions sont dépensées sans effet : aucun duel ne peut se conclure
+	SimulateurCombat.Combattant tireur = new SimulateurCombat.Combattant(() -> new Perso(3), () -> new ArmeDist(44, Arme.QualiteArme.moyenne, Arme.EquilibrageArme.normal), null);
+	SimulateurCombat.Combattant escrimeur = new SimulateurCombat.Combattant(() -> new Perso(3), () -> new ArmeCaC(8, Arme.QualiteArme.moyenne, Arme.EquilibrageArme.normal), null);
+	SimulateurCombat.Statistiques stats = new SimulateurCombat(tireur, escrimeur, 500).simuler(20, 5);
+	Assert.assertEquals(20, stats.getNbNuls());
+	Assert.assertEquals(0, stats.getDegatsMoyens(), 0);
+    }
+
+    @Test
+    public void testErreur()
+    {
+	SimulateurCombat.Combattant combattant = new SimulateurCombat.Combattant(() -> new Perso(3), () -> null, null);
+	try
+	{
+	    new SimulateurCombat(combattant, combattant, -1);
+	    fail();
+	}
+	catch (IllegalArgumentException e)
+	{
+	    Assert.assertEquals("paramétre aberrant:distance:-1", e.getMessage());
+	}
+	try
+	{
+	    new SimulateurCombat(combattant, combattant, 0).simuler(0, 1);
+	    fail();
+	}
+	catch (IllegalArgumentException e)
+	{
+	    Assert.assertEquals("paramétre aberrant:nombre de duels:0", e.getMessage());
+	}
+	try
+	{
+	    new SimulateurCombat(combattant, null, 0);
+	    fail();
+	}
+	catch (IllegalArgumentException e)
+	{
+	    Assert.assertEquals("paramétre aberrant:combattant:" + combattant + " combattant:null", e.getMessage());
+	}
+	try
+	{
+	    new SimulateurCombat(combattant, combattant, 0, null);
+	    fail();
+	}
+	catch (IllegalArgumentException e)
+	{
+	    Assert.assertEquals("paramétre aberrant:pool:null", e.getMessage());
+	}
+	try
+	{
+	    new SimulateurCombat.Combattant(() -> new Perso(3), null, null);
+	    fail();
+	}
+	catch (IllegalArgumentException e)
+	{
+	    Assert.assertTrue(e.getMessage().endsWith("fabrique d'armes:null"));
+	}
+
+	//arme ni de corps à corps ni à distance : refusée dès la construction du simulateur
+	SimulateurCombat.Combattant exotique = new SimulateurCombat.Combattant(() -> new Perso(3), () -> new Arme(8, Arme.QualiteArme.moyenne, Arme.EquilibrageArme.normal)
+	{
+	    @Override
+	    int extractBonusCarac(GroupeTraits p_Traits, ArbreDomaines p_ArbreDomComp)
+	    {
+		return 0;
+	    }
+	}, null);
+	try
+	{
+	    new SimulateurCombat(exotique, combattant, 0);
+	    fail();
+	}
+	catch (IllegalArgumentException e)
+	{
+	    Assert.assertTrue(e.getMessage().startsWith("paramétre aberrant:arme:"));
+	}
+    }
+}
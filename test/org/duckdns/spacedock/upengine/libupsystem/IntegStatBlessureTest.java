@@ -16,6 +16,7 @@
  */
 package org.duckdns.spacedock.upengine.libupsystem;
 
+import org.duckdns.spacedock.upengine.libupsystem.Arme.Degats;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -46,4 +47,34 @@ public class IntegStatBlessureTest
 	int nbBless = IntegStatTestUtils.nbBlessuresStatistique(57, 5);
 	Assert.assertEquals(3, nbBless);
     }
+
+    @Test
+    public void testDistributionAnalytique()
+    {//la loi exacte de l'encaissement doit correspondre aux fréquences observées sur des blessures réelles
+	int nbEssais = 20000;
+	Degats degats = new Degats(33, 0);
+	DistributionEncaissement distribution = new Perso(3).getDistributionBlessure(degats, null);
+	double sommeProbas = 0;
+	for (int i = 0; i <= distribution.getNbBlessuresLourdesMax(); ++i)
+	{
+	    sommeProbas += distribution.getProbaBlessuresLourdes(i);
+	}
+	Assert.assertEquals(1, sommeProbas, 1e-9);
+
+	int nbBlessures = 0;
+	int nbSonnes = 0;
+	int nbInconscients = 0;
+	for (int i = 0; i < nbEssais; ++i)
+	{
+	    Perso perso = new Perso(3);
+	    perso.etreBlesse(degats, null);
+	    EnsembleJauges.EtatVital etat = perso.getEtatVital();
+	    nbBlessures += etat.getBlessures();
+	    nbSonnes += etat.isSonne() ? 1 : 0;
+	    nbInconscients += etat.isInconscient() ? 1 : 0;
+	}
+	Assert.assertEquals(distribution.getEsperanceBlessuresLourdes(), (double) nbBlessures / nbEssais, 0.05);
+	Assert.assertEquals(distribution.getProbaSonne(), (double) nbSonnes / nbEssais, 0.02);
+	Assert.assertEquals(distribution.getProbaInconscient(), (double) nbInconscients / nbEssais, 0.02);
+    }
 }
@@ -23,6 +23,9 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.powermock.api.mockito.PowerMockito;
@@ -68,14 +71,15 @@ public class UnitArbreDomainesTest
 	referenceMock = PowerMockito.mock(UPReferenceSysteme.class);
 	PowerMockito.mockStatic(UPReferenceSysteme.class);
 	when(UPReferenceSysteme.getInstance()).thenReturn(referenceMock);
-	when(referenceMock.getListDomaines()).thenReturn(listDom);
+	when(referenceMock.getNbDomaines()).thenReturn(listDom.size());
 
 	//on mocke un domaine
 	domaineMock = PowerMockito.mock(Domaine.class);
 	whenNew(Domaine.class).withAnyArguments().thenReturn(domaineMock);
+	when(domaineMock.getNbComp()).thenReturn(4);
 
 	arbreTest = new ArbreDomaines();
-	verify(referenceMock).getListDomaines();
+	verify(referenceMock).getNbDomaines();
     }
 
     @Test
@@ -130,10 +134,10 @@ public class UnitArbreDomainesTest
 	arbreTest.setRangDomaine(0, 5);
 	verify(domaineMock).setRang(5);
 
-	//Cas get
-	when(domaineMock.getRang()).thenReturn(7);
-	Assert.assertEquals(7, arbreTest.getRangDomaine(2));
-	verify(domaineMock).getRang();
+	//Cas get : le rang est lu dans la matrice des rangs, sans interroger le domaine
+	Assert.assertEquals(5, arbreTest.getRangDomaine(0));
+	Assert.assertEquals(1, arbreTest.getRangDomaine(2));//rang initial
+	verify(domaineMock, never()).getRang();
     }
 
     @Test
@@ -187,10 +191,36 @@ public class UnitArbreDomainesTest
 	arbreTest.setRangComp(1, 0, 2);
 	verify(domaineMock).setRangComp(0, 2);
 
-	//Cas get
-	when(domaineMock.getRangComp(3)).thenReturn(6);
-	Assert.assertEquals(6, arbreTest.getRangComp(1, 3));
-	verify(domaineMock).getRangComp(3);
+	//Cas get : le rang est lu dans la matrice des rangs, sans interroger le domaine
+	Assert.assertEquals(2, arbreTest.getRangComp(1, 0));
+	Assert.assertEquals(0, arbreTest.getRangComp(1, 3));//rang initial
+	Assert.assertEquals(0, arbreTest.getRangComp(2, 0));//les domaines voisins ne sont pas affectés
+	verify(domaineMock, never()).getRangComp(anyInt());
+
+	//hors des compétences du domaine c'est celui-ci qui est interrogé (et qui signale l'erreur)
+	when(domaineMock.getRangComp(4)).thenReturn(6);
+	Assert.assertEquals(6, arbreTest.getRangComp(1, 4));
+	verify(domaineMock).getRangComp(4);
+    }
+
+    @Test
+    public void testEffectuerJetCompCheminRapide()
+    {
+	//le jet lit les rangs dans la matrice et ne traverse pas les objets
+	arbreTest.setRangDomaine(3, 4);
+	arbreTest.setRangComp(3, 2, 3);
+	RollGenerator.RollResult resultat = arbreTest.effectuerJetComp(2, 3, 2, 0, 0, 0, 0, false);
+	Assert.assertNotNull(resultat);
+	verify(domaineMock, never()).effectuerJetComp(anyInt(), anyInt(), anyInt(), anyInt(), anyInt(), anyInt(), anyBoolean());
+
+	//copie sur écriture de la matrice : la copie et le modèle évoluent indépendamment
+	ArbreDomaines copie = arbreTest.copier();
+	copie.setRangDomaine(3, 6);
+	Assert.assertEquals(6, copie.getRangDomaine(3));
+	Assert.assertEquals(4, arbreTest.getRangDomaine(3));
+	arbreTest.setRangComp(3, 2, 1);
+	Assert.assertEquals(3, copie.getRangComp(3, 2));
+	Assert.assertEquals(1, arbreTest.getRangComp(3, 2));
     }
 
     @Test
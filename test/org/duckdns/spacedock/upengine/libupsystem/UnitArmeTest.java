@@ -17,6 +17,7 @@
 package org.duckdns.spacedock.upengine.libupsystem;
 
 import java.util.EnumMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.duckdns.spacedock.upengine.libupsystem.Arme.Degats;
 import static org.duckdns.spacedock.upengine.libupsystem.GroupeTraits.Trait.PHYSIQUE;
 import org.junit.Assert;
@@ -60,6 +61,8 @@ public class UnitArmeTest
     private static ArmeDist arme6;
     private static ArmeDist arme7;
     private static ArmeDist arme8;
+    private static ArmeCaC arme3Bis;
+    private static ArmeCaC arme4Bis;
     private static ArmeMainsNues armeMainsNues;
     private static UPReferenceArmes referenceMock;
     private static EnumMap<Arme.QualiteArme, String> listQualite;
@@ -107,6 +110,8 @@ public class UnitArmeTest
 	arme2 = new ArmeCaC(10, Arme.QualiteArme.inferieure, Arme.EquilibrageArme.bon);
 	arme3 = new ArmeCaC(10, Arme.QualiteArme.maitre, Arme.EquilibrageArme.mauvais);
 	arme4 = new ArmeCaC(10, Arme.QualiteArme.moyenne, Arme.EquilibrageArme.normal);
+	arme3Bis = new ArmeCaC(10, Arme.QualiteArme.maitre, Arme.EquilibrageArme.bon);
+	arme4Bis = new ArmeCaC(10, Arme.QualiteArme.moyenne, Arme.EquilibrageArme.normal);
 
 	when(referenceMock.getVDArme(34)).thenReturn(3);
 	when(referenceMock.getBonusInitArme(34)).thenReturn(0);
@@ -242,6 +247,15 @@ public class UnitArmeTest
 	Assert.assertEquals(1, armeMainsNues.getphysMin());
     }
 
+    @Test
+    public void testPrototypesPartages()
+    {
+	//les armes de même indice partagent leurs caractéristiques de référence quelles que soient qualité et équilibrage
+	Assert.assertSame(arme2.getPrototype(), arme3.getPrototype());
+	Assert.assertSame(arme2.getPrototype(), arme4.getPrototype());
+	Assert.assertNotSame(arme1.getPrototype(), arme2.getPrototype());
+    }
+
     @Test
     public void testNbMains()
     {
@@ -268,6 +282,10 @@ public class UnitArmeTest
 	Assert.assertEquals("arc de qualité supérieure et équilibrage mauvais", arme7.toString());
 	Assert.assertEquals("SupaShooter de maître", arme8.toString());
 	Assert.assertEquals("mains nues", armeMainsNues.toString());
+
+	//les noms sont partagés par combinaison, l'équilibrage étant ignoré pour les armes de maître
+	Assert.assertSame(arme3.toString(), arme3Bis.toString());
+	Assert.assertSame(arme4.toString(), arme4Bis.toString());
     }
 
     @Test
@@ -330,6 +348,107 @@ public class UnitArmeTest
 	Assert.assertEquals(0, arme5.getMunCourantes());
     }
 
+    /**
+     * les tests de concurrence partent d'une arme neuve plutôt que des armes
+     * partagées, dont l'état du magasin dépend de l'ordre des tests
+     *
+     * @return une arme à distance au magasin vide, décrite par la référence
+     * mockée (19 coups)
+     */
+    private static ArmeDist creerArmeNeuve()
+    {
+	PowerMockito.mockStatic(UPReferenceArmes.class);
+	when(UPReferenceArmes.getInstance()).thenReturn(referenceMock);
+	return new ArmeDist(512, Arme.QualiteArme.maitre, Arme.EquilibrageArme.mauvais);
+    }
+
+    @Test
+    public void testReserverMun() throws InterruptedException
+    {
+	final ArmeDist arme = creerArmeNeuve();
+
+	//les réservations impossibles échouent sans exception ni consommation
+	Assert.assertFalse(arme.reserverMun(1));
+	arme.recharger(19);
+	Assert.assertFalse(arme.reserverMun(0));
+	Assert.assertFalse(arme.reserverMun(20));
+	assertEquals(19, arme.getMunCourantes());
+
+	//plusieurs threads puisant dans la même arme se partagent exactement le contenu du magasin
+	final AtomicInteger nbReserves = new AtomicInteger(0);
+	Thread[] tireurs = new Thread[4];
+	for (int i = 0; i < tireurs.length; ++i)
+	{
+	    tireurs[i] = new Thread(new Runnable()
+	    {
+		@Override
+		public void run()
+		{
+		    while (arme.reserverMun(1))
+		    {
+			nbReserves.incrementAndGet();
+		    }
+		}
+	    });
+	    tireurs[i].start();
+	}
+	for (Thread tireur : tireurs)
+	{
+	    tireur.join();
+	}
+	assertEquals(19, nbReserves.get());
+	assertEquals(0, arme.getMunCourantes());
+    }
+
+    @Test
+    public void testTirConcurrent() throws InterruptedException
+    {//plusieurs tireurs partageant la même arme se répartissent exactement le magasin, les tirs sans munitions échouant sans exception
+	final ArmeDist fusil = creerArmeNeuve();
+	final int taille = fusil.getTailleMAgasin();
+	fusil.recharger(taille);
+	final AtomicInteger nbTirs = new AtomicInteger(0);
+	final AtomicInteger nbErreurs = new AtomicInteger(0);
+	Thread[] tireurs = new Thread[4];
+	for (int i = 0; i < tireurs.length; ++i)
+	{
+	    tireurs[i] = new Thread(new Runnable()
+	    {
+		@Override
+		public void run()
+		{
+		    try
+		    {
+			Perso tireur = new Perso(3);
+			tireur.genInit();
+			for (int j = 0; j < taille; ++j)
+			{
+			    if (tireur.getActions().isEmpty())
+			    {
+				tireur.genInit();
+			    }
+			    if (tireur.attaquerDist(tireur.getActions().get(0), 0, 10, 1, fusil).isJetReussi())
+			    {//ND nul : seul le manque de munitions peut faire échouer le tir
+				nbTirs.incrementAndGet();
+			    }
+			}
+		    }
+		    catch (RuntimeException e)
+		    {
+			nbErreurs.incrementAndGet();
+		    }
+		}
+	    });
+	    tireurs[i].start();
+	}
+	for (Thread tireur : tireurs)
+	{
+	    tireur.join();
+	}
+	assertEquals(0, nbErreurs.get());
+	assertEquals(taille, nbTirs.get());
+	assertEquals(0, fusil.getMunCourantes());
+    }
+
     @Test
     public void testVerifPreAttaqueErreur()
     {
@@ -348,10 +467,18 @@ public class UnitArmeTest
 	arme5.consommerMun(3);
 
 	//cas d'erreur : portée insufissante entraînant échec auto
-	Assert.assertTrue(arme8.verifPreAttaque(200, 10).isEchecAuto());
+	ArmeDist.DistReport echec = arme8.verifPreAttaque(200, 10);
+	Assert.assertTrue(echec.isEchecAuto());
+	Assert.assertSame(ArmeDist.ECHEC_AUTO, echec);//les échecs automatiques partagent un rapport unique
 	assertEquals(9, arme8.getMunCourantes());//on vérifie que bien qu'il y ait eu échec auto, l'attaque hors portée ne soit pas annulée et les munitions bien consommées
 	arme8.recharger(10);//on remplit les munitions consommées
 
+	//cas d'erreur : munitions insuffisantes entraînant échec auto sans consommation
+	ArmeDist.DistReport echecMun = arme8.verifPreAttaque(100, 20);
+	Assert.assertSame(ArmeDist.ECHEC_MUNITIONS, echecMun);
+	Assert.assertTrue(echecMun.isEchecAuto());
+	assertEquals(19, arme8.getMunCourantes());
+
 	//cas d'erreur : plus de 20 balles
 	try
 	{
@@ -418,6 +545,10 @@ public class UnitArmeTest
 	assertEquals(1, report.getModJet());
 	assertEquals(3, report.getModDesGardes());
 	assertEquals(3, report.getModDesLances());
+	arme8.recharger(19);
+
+	//les rapports sont précalculés et partagés : une attaque identique renvoie le même
+	Assert.assertSame(report, arme8.verifPreAttaque(75, 19));
     }
 
     @Test
@@ -19,6 +19,10 @@ package org.duckdns.spacedock.upengine.libupsystem;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
@@ -49,4 +53,26 @@ public class UnitArmureTest
 	Assert.assertEquals(5, (new Armure(12, 2)).getBonusND(3));
 	Assert.assertEquals(12, (new Armure(14, 7)).getRedDegats(6));
     }
+
+    @Test
+    public void testEffetsPrecalcules()
+    {   //on mocke la référence
+	UPReferenceArmures referenceMock = PowerMockito.mock(UPReferenceArmures.class);
+	PowerMockito.mockStatic(UPReferenceArmures.class);
+	when(UPReferenceArmures.getInstance()).thenReturn(referenceMock);
+	when(referenceMock.getNbTypesArmes()).thenReturn(5);
+	when(referenceMock.getBonusND(12, 3, 2)).thenReturn(5);
+	when(referenceMock.getRedDegats(12, 3, 2)).thenReturn(11);
+
+	Armure armure = new Armure(12, 2);
+	verify(referenceMock, times(5)).getBonusND(eq(12), anyInt(), eq(2));
+	verify(referenceMock, times(5)).getRedDegats(eq(12), anyInt(), eq(2));
+
+	//les consultations suivantes ne sollicitent plus la référence
+	Assert.assertEquals(5, armure.getBonusND(3));
+	Assert.assertEquals(11, armure.getRedDegats(3));
+	Assert.assertEquals(0, armure.getRedDegats(4));
+	verify(referenceMock, times(5)).getBonusND(eq(12), anyInt(), eq(2));
+	verify(referenceMock, times(5)).getRedDegats(eq(12), anyInt(), eq(2));
+    }
 }
@@ -19,6 +19,7 @@ package org.duckdns.spacedock.upengine.libupsystem;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import static org.junit.Assert.fail;
 import org.junit.runner.RunWith;
 import static org.mockito.Mockito.when;
 import org.powermock.api.mockito.PowerMockito;
@@ -59,6 +60,22 @@ public class UnitBouclierTest
 	when(referenceArmuresMock.getPtsBouclier(0)).thenReturn(2);
 	when(referenceArmuresMock.getLblBouclier(0)).thenReturn("targe");
 	bouclier2 = new Bouclier(0, 0);
+
+	//type hors des bornes de la référence
+	when(referenceArmuresMock.getLblTypeArmure(9)).thenThrow(new IndexOutOfBoundsException());
+    }
+
+    @Test
+    public void testErreurConstruction()
+    {//le type est contrôlé à la construction et non à la première demande de libellé
+	try
+	{
+	    new Bouclier(0, 9);
+	    fail();
+	}
+	catch (IndexOutOfBoundsException e)
+	{
+	}
     }
 
     @Test
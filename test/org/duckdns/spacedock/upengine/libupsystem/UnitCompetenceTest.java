@@ -116,4 +116,20 @@ public class UnitCompetenceTest
 	Assert.assertEquals("murmure à l'oreille des veaux", competence.getSpecialites().get(0));
 	Assert.assertEquals("poinçonnage de tickets de métro", competence.getSpecialites().get(1));
     }
+
+    @Test
+    public void testCopie()
+    {
+	Competence original = new Competence(2, null);
+	original.addSpecialite("dressage de hamsters");
+	Competence copie = new Competence(original);
+	Assert.assertEquals(2, copie.getRang());
+	Assert.assertEquals(original.getSpecialites(), copie.getSpecialites());
+
+	//la copie est indépendante de l'original
+	copie.setRang(4);
+	copie.addSpecialite("lancer de nains");
+	Assert.assertEquals(2, original.getRang());
+	Assert.assertEquals(1, original.getSpecialites().size());
+    }
 }
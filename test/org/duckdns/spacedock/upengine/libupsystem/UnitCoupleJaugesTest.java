@@ -355,4 +355,51 @@ public class UnitCoupleJaugesTest
 	Assert.assertTrue(jaugeFFA.isInconscient());//oui car jet raté même si jauge non remplie
 	Assert.assertTrue(jaugeFFA.isSonne());//oui car point de rupture dépassé
     }
+
+    @Test
+    public void testDistributionEncaissement()
+    {
+	when(groupeTraitMock.getTrait(GroupeTraits.Trait.PHYSIQUE)).thenReturn(5);
+	when(groupeTraitMock.getTrait(GroupeTraits.Trait.VOLONTE)).thenReturn(3);
+	RollDistribution.Distribution loiPhysique = RollDistribution.getInstance().getDistribution(5, 5, false);
+	RollDistribution.Distribution loiVolonte = RollDistribution.getInstance().getDistribution(3, 3, false);
+
+	//40 points de dégâts : le score minimal de 5 borne les blessures lourdes à 4
+	DistributionEncaissement distribution = jaugeFFA.getDistributionEncaissement(40, groupeTraitMock);
+	Assert.assertEquals(4, distribution.getNbBlessuresLourdesMax());
+	Assert.assertEquals(loiPhysique.getProbaAuMoins(40), distribution.getProbaAbsorption(), 1e-12);
+	Assert.assertEquals(loiPhysique.getProbaAuMoins(31) - loiPhysique.getProbaAuMoins(40), distribution.getProbaBlessuresLourdes(1), 1e-12);
+	Assert.assertEquals(loiPhysique.getProbaAuMoins(21) - loiPhysique.getProbaAuMoins(31), distribution.getProbaBlessuresLourdes(2), 1e-12);
+	Assert.assertEquals(loiPhysique.getProbaAuMoins(11) - loiPhysique.getProbaAuMoins(21), distribution.getProbaBlessuresLourdes(3), 1e-12);
+	double probaQuatre = 1 - loiPhysique.getProbaAuMoins(11);
+	Assert.assertEquals(probaQuatre, distribution.getProbaBlessuresLourdes(4), 1e-12);
+	Assert.assertEquals(0, distribution.getProbaBlessuresLourdes(5), 0);
+
+	//sonné à partir de 3 blessures (point de rupture), jets d'inconscience et de mort à ND 15 sans incrément requis à partir de 4
+	Assert.assertEquals(1 - loiPhysique.getProbaAuMoins(21), distribution.getProbaSonne(), 1e-12);
+	double probaInconscient = probaQuatre * (1 - loiVolonte.getProbaAuMoins(15));
+	Assert.assertEquals(probaInconscient, distribution.getProbaInconscient(), 1e-12);
+	Assert.assertEquals(probaInconscient * (1 - loiPhysique.getProbaAuMoins(15)), distribution.getProbaElimine(), 1e-12);
+
+	//la jauge n'a pas été touchée
+	Assert.assertEquals(0, jaugeFFA.getPointsDegats());
+	Assert.assertEquals(0, jaugeFFA.getRemplissage_interne());
+
+	//jauge de santé minuscule : une blessure sonne, 3 blessures ou plus débordent et éliminent à coup sûr
+	when(groupeTraitMock.getTrait(GroupeTraits.Trait.PHYSIQUE)).thenReturn(1);
+	when(groupeTraitMock.getTrait(GroupeTraits.Trait.VOLONTE)).thenReturn(1);
+	distribution = jaugeSI.getDistributionEncaissement(50, groupeTraitMock);
+	Assert.assertEquals(1 - distribution.getProbaAbsorption(), distribution.getProbaSonne(), 1e-12);
+	Assert.assertTrue(distribution.getProbaElimine() >= 1 - distribution.getProbaBlessuresLourdes(1) - distribution.getProbaBlessuresLourdes(2) - 1e-12);
+
+	try
+	{
+	    jaugeFFA.getDistributionEncaissement(-1, groupeTraitMock);
+	    fail();
+	}
+	catch (IllegalArgumentException e)
+	{
+	    Assert.assertEquals("paramétre aberrant:dégâts:-1", e.getMessage());
+	}
+    }
 }
@@ -64,7 +64,7 @@ public class UnitDomaineTest
 	referenceMock = PowerMockito.mock(UPReferenceSysteme.class);
 	PowerMockito.mockStatic(UPReferenceSysteme.class);
 	when(UPReferenceSysteme.getInstance()).thenReturn(referenceMock);
-	when(referenceMock.getListComp(0)).thenReturn(listComp);//on renvoie la liste de trois compétences quand la référence est interrogée
+	when(referenceMock.getNbComp(0)).thenReturn(listComp.size());//on annonce les trois compétences de la liste quand la référence est interrogée
 
 	//On mocke une competence pour intercepter les appels
 	competenceMock = PowerMockito.mock(Competence.class);
@@ -23,6 +23,7 @@ import org.junit.Before;
 import org.junit.Test;
 import static org.junit.Assert.*;
 import org.junit.runner.RunWith;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.powermock.api.mockito.PowerMockito;
 import static org.powermock.api.mockito.PowerMockito.whenNew;
@@ -117,8 +118,11 @@ public class UnitEnsembleJaugesTest
     {
 	//On teste la "consommation" des actions
 	Assert.assertEquals(1, jaugesRM1.getActions().size());
+	Assert.assertEquals((int) jaugesRM1.getActions().get(0), jaugesRM1.getPhaseProchaineAction());
 	jaugesRM1.agirEnCombat(jaugesRM1.getActions().get(0));
 	Assert.assertEquals(0, jaugesRM1.getActions().size());
+	Assert.assertEquals(0, jaugesRM1.getPhaseProchaineAction());
+	Assert.assertEquals(0, (int) jaugesRM1.getInitTotale(null));
     }
 
     @Test
@@ -198,83 +202,101 @@ public class UnitEnsembleJaugesTest
 	}
     }
 
+    /**
+     * l'état vital étant mis en cache jusqu'à la prochaine modification des
+     * jauges, on le lit sur un ensemble neuf construit sur les mêmes mocks
+     * afin qu'il reflète les réponses qui viennent d'être fixées
+     *
+     * @return
+     */
+    private EnsembleJauges.EtatVital etatVitalNeuf()
+    {
+	return new EnsembleJauges(traitsRM3Mock).getEtatVital();
+    }
+
     @Test
     public void testEtatBooleens()
-    {
+    {//les drapeaux de l'état vital et les prédicats directs doivent concorder
 	when(fatigueFARM3Mock.isElimine()).thenReturn(true);
 	when(santeInitRM3Mock.isElimine()).thenReturn(true);
-	Assert.assertTrue(jaugesRM3.getEtatVital().isElimine());
+	Assert.assertTrue(etatVitalNeuf().isElimine());
+	Assert.assertTrue(jaugesRM3.isElimine());
 
 	when(fatigueFARM3Mock.isElimine()).thenReturn(true);
 	when(santeInitRM3Mock.isElimine()).thenReturn(false);
-	Assert.assertTrue(jaugesRM3.getEtatVital().isElimine());
+	Assert.assertTrue(etatVitalNeuf().isElimine());
+	Assert.assertTrue(jaugesRM3.isElimine());
 
 	when(fatigueFARM3Mock.isElimine()).thenReturn(false);
 	when(santeInitRM3Mock.isElimine()).thenReturn(true);
-	Assert.assertTrue(jaugesRM3.getEtatVital().isElimine());
+	Assert.assertTrue(etatVitalNeuf().isElimine());
+	Assert.assertTrue(jaugesRM3.isElimine());
 
 	when(fatigueFARM3Mock.isElimine()).thenReturn(false);
 	when(santeInitRM3Mock.isElimine()).thenReturn(false);
-	Assert.assertFalse(jaugesRM3.getEtatVital().isElimine());
+	Assert.assertFalse(etatVitalNeuf().isElimine());
+	Assert.assertFalse(jaugesRM3.isElimine());
 
 	when(fatigueFARM3Mock.isInconscient()).thenReturn(true);
 	when(santeInitRM3Mock.isInconscient()).thenReturn(true);
-	Assert.assertTrue(jaugesRM3.getEtatVital().isInconscient());
+	Assert.assertTrue(etatVitalNeuf().isInconscient());
+	Assert.assertTrue(jaugesRM3.isInconscient());
 
 	when(fatigueFARM3Mock.isInconscient()).thenReturn(true);
 	when(santeInitRM3Mock.isInconscient()).thenReturn(false);
-	Assert.assertTrue(jaugesRM3.getEtatVital().isInconscient());
+	Assert.assertTrue(etatVitalNeuf().isInconscient());
+	Assert.assertTrue(jaugesRM3.isInconscient());
 
 	when(fatigueFARM3Mock.isInconscient()).thenReturn(false);
 	when(santeInitRM3Mock.isInconscient()).thenReturn(true);
-	Assert.assertTrue(jaugesRM3.getEtatVital().isInconscient());
+	Assert.assertTrue(etatVitalNeuf().isInconscient());
+	Assert.assertTrue(jaugesRM3.isInconscient());
 
 	when(fatigueFARM3Mock.isInconscient()).thenReturn(false);
 	when(santeInitRM3Mock.isInconscient()).thenReturn(false);
-	Assert.assertFalse(jaugesRM3.getEtatVital().isInconscient());
+	Assert.assertFalse(etatVitalNeuf().isInconscient());
+	Assert.assertFalse(jaugesRM3.isInconscient());
 
 	when(fatigueFARM3Mock.isSonne()).thenReturn(true);
 	when(santeInitRM3Mock.isSonne()).thenReturn(true);
-	Assert.assertTrue(jaugesRM3.getEtatVital().isSonne());
+	Assert.assertTrue(etatVitalNeuf().isSonne());
+	Assert.assertTrue(jaugesRM3.isSonne());
 
 	when(fatigueFARM3Mock.isSonne()).thenReturn(true);
 	when(santeInitRM3Mock.isSonne()).thenReturn(false);
-	Assert.assertTrue(jaugesRM3.getEtatVital().isSonne());
+	Assert.assertTrue(etatVitalNeuf().isSonne());
+	Assert.assertTrue(jaugesRM3.isSonne());
 
 	when(fatigueFARM3Mock.isSonne()).thenReturn(false);
 	when(santeInitRM3Mock.isSonne()).thenReturn(true);
-	Assert.assertTrue(jaugesRM3.getEtatVital().isSonne());
+	Assert.assertTrue(etatVitalNeuf().isSonne());
+	Assert.assertTrue(jaugesRM3.isSonne());
 
 	when(fatigueFARM3Mock.isSonne()).thenReturn(false);
 	when(santeInitRM3Mock.isSonne()).thenReturn(false);
-	Assert.assertFalse(jaugesRM3.getEtatVital().isSonne());
+	Assert.assertFalse(etatVitalNeuf().isSonne());
+	Assert.assertFalse(jaugesRM3.isSonne());
     }
 
     @Test
     public void testGetEtatInternes()
-    {
+    {//l'état vital est mis en cache jusqu'à la prochaine modification des jauges : on fixe donc tous les mocks avant de le produire
 	when(santeInitRM3Mock.getRemplissage_interne()).thenReturn(2);
-	Assert.assertEquals(2, jaugesRM3.getEtatVital().getBlessures());
-
 	when(santeInitRM3Mock.getTaille_interne()).thenReturn(5);
-	Assert.assertEquals(5, jaugesRM3.getEtatVital().getSante());
-
 	when(santeInitRM3Mock.getPointsDegats()).thenReturn(23);
-	Assert.assertEquals(23, jaugesRM3.getEtatVital().getPointsDegatsPhysiques());
-
 	when(fatigueFARM3Mock.getRemplissage_interne()).thenReturn(7);
-	Assert.assertEquals(7, jaugesRM3.getEtatVital().getPtsFatigue());
-
 	when(fatigueFARM3Mock.getTaille_interne()).thenReturn(6);
-	Assert.assertEquals(6, jaugesRM3.getEtatVital().getFatigue());
-
 	when(fatigueFARM3Mock.getPointsDegats()).thenReturn(27);
-	Assert.assertEquals(27, jaugesRM3.getEtatVital().getPointsDegatsChoc());
-
 	when(santeInitRM3Mock.getPtRupture()).thenReturn(2);
-	Assert.assertEquals(2, jaugesRM3.getEtatVital().getPtRuptureSante());
-
 	when(fatigueFARM3Mock.getPtRupture()).thenReturn(4);
+
+	Assert.assertEquals(2, jaugesRM3.getEtatVital().getBlessures());
+	Assert.assertEquals(5, jaugesRM3.getEtatVital().getSante());
+	Assert.assertEquals(23, jaugesRM3.getEtatVital().getPointsDegatsPhysiques());
+	Assert.assertEquals(7, jaugesRM3.getEtatVital().getPtsFatigue());
+	Assert.assertEquals(6, jaugesRM3.getEtatVital().getFatigue());
+	Assert.assertEquals(27, jaugesRM3.getEtatVital().getPointsDegatsChoc());
+	Assert.assertEquals(2, jaugesRM3.getEtatVital().getPtRuptureSante());
 	Assert.assertEquals(4, jaugesRM3.getEtatVital().getPtRuptureFatigue());
     }
 
@@ -282,15 +304,30 @@ public class UnitEnsembleJaugesTest
     public void testGetEtatExternes()
     {
 	when(santeInitRM3Mock.getRemplissage_externe()).thenReturn(1);
-	Assert.assertEquals(1, jaugesRM3.getEtatVital().getInitActu());
-
 	when(santeInitRM3Mock.getTaille_externe()).thenReturn(8);
-	Assert.assertEquals(8, jaugesRM3.getEtatVital().getInitMax());
-
 	when(fatigueFARM3Mock.getRemplissage_externe()).thenReturn(2);
-	Assert.assertEquals(2, jaugesRM3.getEtatVital().getForceDAmeActu());
-
 	when(fatigueFARM3Mock.getTaille_externe()).thenReturn(3);
+
+	Assert.assertEquals(1, jaugesRM3.getEtatVital().getInitActu());
+	Assert.assertEquals(8, jaugesRM3.getEtatVital().getInitMax());
+	Assert.assertEquals(2, jaugesRM3.getEtatVital().getForceDAmeActu());
 	Assert.assertEquals(3, jaugesRM3.getEtatVital().getForceDAmeMax());
     }
+
+    @Test
+    public void testCacheEtatVital()
+    {
+	EnsembleJauges.EtatVital etat = jaugesRM3.getEtatVital();
+	Assert.assertSame(etat, jaugesRM3.getEtatVital());//jauges inchangées : même état
+
+	when(santeInitRM3Mock.getPointsDegats()).thenReturn(12);
+	jaugesRM3.recevoirDegatsPhysiques(12);
+	verify(santeInitRM3Mock).recevoirDegatsControles(12, traitsRM3Mock);
+	EnsembleJauges.EtatVital nouvelEtat = jaugesRM3.getEtatVital();
+	Assert.assertNotSame(etat, nouvelEtat);
+	Assert.assertEquals(12, nouvelEtat.getPointsDegatsPhysiques());
+
+	jaugesRM3.recevoirDegatsMentaux(3);
+	Assert.assertNotSame(nouvelEtat, jaugesRM3.getEtatVital());
+    }
 }
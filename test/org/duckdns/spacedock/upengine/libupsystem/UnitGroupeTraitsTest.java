@@ -70,4 +70,33 @@ public class UnitGroupeTraitsTest
 	assertEquals(0, traits.getTrait(GroupeTraits.Trait.VOLONTE));
 	assertEquals(6, traits.getTrait(GroupeTraits.Trait.PRESENCE));
     }
+
+    @Test
+    public void testFigerEtCopier()
+    {
+	GroupeTraits traits = new GroupeTraits(1, 2, 8, 0, 6);
+	assertFalse(traits.isFige());
+	GroupeTraits fige = traits.figer();
+	assertTrue(fige.isFige());
+	assertSame(fige, fige.figer());//déjà figé : pas de nouvelle copie
+	traits.setTrait(GroupeTraits.Trait.MENTAL, 3);//l'original reste modifiable et indépendant
+	assertEquals(8, fige.getTrait(GroupeTraits.Trait.MENTAL));
+	assertEquals(6, fige.getTrait(GroupeTraits.Trait.PRESENCE));
+
+	try
+	{
+	    fige.setTrait(GroupeTraits.Trait.PHYSIQUE, 2);
+	    fail();
+	}
+	catch (IllegalStateException e)
+	{
+	    assertEquals("emploi de la mauvaise méthode dans ce contexte:trait:PHYSIQUE", e.getMessage());
+	}
+
+	GroupeTraits copie = fige.copier();
+	assertFalse(copie.isFige());
+	copie.setTrait(GroupeTraits.Trait.PHYSIQUE, 2);
+	assertEquals(2, copie.getTrait(GroupeTraits.Trait.PHYSIQUE));
+	assertEquals(1, fige.getTrait(GroupeTraits.Trait.PHYSIQUE));
+    }
 }
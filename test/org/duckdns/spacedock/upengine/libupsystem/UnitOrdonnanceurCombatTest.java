@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2017 ykonoclast
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.duckdns.spacedock.upengine.libupsystem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.Test;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.powermock.api.mockito.PowerMockito;
+
+/**
+ *
+ * @author ykonoclast
+ */
+public class UnitOrdonnanceurCombatTest
+{
+
+    private Perso persoA;
+    private Perso persoB;
+    private Perso persoC;
+    private Perso persoD;
+    //phases des prochaines actions des personnages mockés
+    private AtomicInteger phaseA;
+    private AtomicInteger phaseB;
+    private AtomicInteger phaseC;
+    private AtomicInteger phaseD;
+
+    @Before
+    public void setUp()
+    {
+	phaseA = new AtomicInteger(0);
+	phaseB = new AtomicInteger(0);
+	phaseC = new AtomicInteger(0);
+	phaseD = new AtomicInteger(0);
+	persoA = mockPerso(phaseA, 3);
+	persoB = mockPerso(phaseB, 1);
+	persoC = mockPerso(phaseC, 3);
+	persoD = mockPerso(phaseD, 0);//pas d'action dans le tour
+    }
+
+    /**
+     * @param p_phase la phase de la prochaine action que renverra le mock
+     * @param p_phaseInit la phase de la première action après genInit
+     * @return un perso mocké dont la prochaine action est pilotée par p_phase
+     */
+    private static Perso mockPerso(AtomicInteger p_phase, int p_phaseInit)
+    {
+	Perso perso = PowerMockito.mock(Perso.class);
+	when(perso.getPhaseProchaineAction()).thenAnswer(invocation -> p_phase.get());
+	doAnswer(invocation ->
+	{
+	    p_phase.set(p_phaseInit);
+	    return null;
+	}).when(perso).genInit();
+	return perso;
+    }
+
+    @Test
+    public void testParcoursTour()
+    {
+	OrdonnanceurCombat ordonnanceur = new OrdonnanceurCombat(Arrays.asList(persoA, persoB, persoC, persoD));
+	Assert.assertNull(ordonnanceur.getProchainActeur());//pas de tour en cours
+	Assert.assertEquals(0, ordonnanceur.getPhaseCourante());
+
+	ordonnanceur.nouveauTour();
+	verify(persoA, times(1)).genInit();
+	verify(persoD, times(1)).genInit();
+	Assert.assertEquals(Arrays.asList(persoA, persoC), ordonnanceur.getActeurs(3));
+	Assert.assertTrue(ordonnanceur.getActeurs(2).isEmpty());
+
+	Assert.assertSame(persoB, ordonnanceur.getProchainActeur());
+	Assert.assertEquals(1, ordonnanceur.getPhaseCourante());
+	Assert.assertSame(persoB, ordonnanceur.getProchainActeur());//tant que l'action n'est pas consommée l'acteur reste le même
+	phaseB.set(3);//B consomme son action, la suivante est en phase 3 : il passe après ceux qui y étaient déjà
+
+	Assert.assertSame(persoA, ordonnanceur.getProchainActeur());
+	Assert.assertEquals(3, ordonnanceur.getPhaseCourante());
+	phaseA.set(0);
+	Assert.assertSame(persoC, ordonnanceur.getProchainActeur());
+	phaseC.set(5);
+	Assert.assertEquals(Arrays.asList(persoB), ordonnanceur.getActeurs(3));
+	Assert.assertEquals(Arrays.asList(persoC), ordonnanceur.getActeurs(5));
+	Assert.assertSame(persoB, ordonnanceur.getProchainActeur());
+	phaseB.set(0);
+	Assert.assertSame(persoC, ordonnanceur.getProchainActeur());
+	Assert.assertEquals(5, ordonnanceur.getPhaseCourante());
+	phaseC.set(0);
+	Assert.assertNull(ordonnanceur.getProchainActeur());
+	Assert.assertEquals(0, ordonnanceur.getPhaseCourante());
+
+	//nouveau tour : tout le monde est replacé
+	ordonnanceur.nouveauTour();
+	Assert.assertSame(persoB, ordonnanceur.getProchainActeur());
+    }
+
+    @Test
+    public void testAjoutRetrait()
+    {
+	OrdonnanceurCombat ordonnanceur = new OrdonnanceurCombat();
+	ordonnanceur.ajouterParticipant(persoA);
+	ordonnanceur.ajouterParticipant(persoB);
+	ordonnanceur.nouveauTour();
+
+	ordonnanceur.retirerParticipant(persoB);
+	Assert.assertEquals(Arrays.asList(persoA), ordonnanceur.getParticipants());
+	Assert.assertSame(persoA, ordonnanceur.getProchainActeur());
+
+	//un participant ajouté en cours de tour est rangé selon ses actions restantes
+	phaseC.set(4);
+	ordonnanceur.ajouterParticipant(persoC);
+	phaseA.set(0);
+	Assert.assertSame(persoC, ordonnanceur.getProchainActeur());
+
+	//mais pas si sa prochaine action est déjà passée
+	phaseB.set(2);
+	ordonnanceur.ajouterParticipant(persoB);
+	phaseC.set(0);
+	Assert.assertNull(ordonnanceur.getProchainActeur());
+    }
+
+    @Test
+    public void testPersosReels()
+    {//des personnages réels tirent leur initiative et consomment leurs actions au travers de l'ordonnanceur
+	Perso perso1 = new Perso(3);
+	Perso perso2 = new Perso(2);
+	OrdonnanceurCombat ordonnanceur = new OrdonnanceurCombat(Arrays.asList(perso1, perso2));
+	ordonnanceur.nouveauTour();
+	ArrayList<Integer> actions1 = perso1.getActions();
+	ArrayList<Integer> actions2 = perso2.getActions();
+
+	ArrayList<Integer> phases1 = new ArrayList<>();
+	ArrayList<Integer> phases2 = new ArrayList<>();
+	int phasePrecedente = 1;
+	Perso acteur = ordonnanceur.getProchainActeur();
+	while (acteur != null)
+	{
+	    int phase = ordonnanceur.getPhaseCourante();
+	    Assert.assertTrue(phase >= phasePrecedente);//les phases sont parcourues dans l'ordre
+	    Assert.assertTrue(acteur.isActif(phase));
+	    ((acteur == perso1) ? phases1 : phases2).add(phase);
+	    acteur.agirEnCombat(phase);
+	    phasePrecedente = phase;
+	    acteur = ordonnanceur.getProchainActeur();
+	}
+	//chaque action tirée a été jouée une fois et une seule, dans sa phase
+	Assert.assertEquals(actions1, phases1);
+	Assert.assertEquals(actions2, phases2);
+	Assert.assertTrue(perso1.getActions().isEmpty());
+	Assert.assertTrue(perso2.getActions().isEmpty());
+    }
+
+    @Test
+    public void testErreurs()
+    {
+	OrdonnanceurCombat ordonnanceur = new OrdonnanceurCombat();
+	try
+	{
+	    ordonnanceur.ajouterParticipant(null);
+	    fail();
+	}
+	catch (IllegalArgumentException e)
+	{
+	    Assert.assertEquals("paramétre aberrant:personnage:null", e.getMessage());
+	}
+
+	ordonnanceur.ajouterParticipant(persoA);
+	try
+	{//un participant déjà présent ne peut être ajouté une seconde fois
+	    ordonnanceur.ajouterParticipant(persoA);
+	    fail();
+	}
+	catch (IllegalArgumentException e)
+	{
+	    Assert.assertTrue(e.getMessage().startsWith("paramétre aberrant:personnage:"));
+	}
+	Assert.assertEquals(Arrays.asList(persoA), ordonnanceur.getParticipants());
+
+	try
+	{
+	    ordonnanceur.getActeurs(0);
+	    fail();
+	}
+	catch (IllegalArgumentException e)
+	{
+	    Assert.assertEquals("paramétre aberrant:phase:0", e.getMessage());
+	}
+
+	try
+	{
+	    ordonnanceur.getActeurs(11);
+	    fail();
+	}
+	catch (IllegalArgumentException e)
+	{
+	    Assert.assertEquals("paramétre aberrant:phase:11", e.getMessage());
+	}
+    }
+}
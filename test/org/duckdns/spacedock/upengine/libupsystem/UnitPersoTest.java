@@ -39,6 +39,7 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.powermock.api.mockito.PowerMockito;
+import static org.powermock.api.mockito.PowerMockito.verifyNew;
 import static org.powermock.api.mockito.PowerMockito.whenNew;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
@@ -51,7 +52,7 @@ import org.powermock.modules.junit4.PowerMockRunner;
 @PrepareForTest(//pour les méthodes statiques c'est la classe appelante qui doit apparaître ici, pour les classes final c'est la classe appelée (donc UPReferenceSysteme n'apparaît ici que pour son caractère final et pas pour sa méthode getInstance()
 
 	{//les classes final, appelant du statique et les classes subissant un whennew
-	    ArmeMainsNues.class, Perso.class, EtatVital.class, GroupeTraits.class, UPReferenceSysteme.class, RollGenerator.RollResult.class, Armure.class, Degats.class, EnsembleJauges.class, ArbreDomaines.class, ArmeDist.class
+	    ArmeMainsNues.class, Perso.class, GabaritPNJ.class, EtatVital.class, GroupeTraits.class, UPReferenceSysteme.class, RollGenerator.RollResult.class, Armure.class, Degats.class, EnsembleJauges.class, ArbreDomaines.class, ArmeDist.class
 	})
 public class UnitPersoTest
 {
@@ -105,6 +106,7 @@ public class UnitPersoTest
 	traitsRM1 = PowerMockito.mock(GroupeTraits.class);
 	traitsRM3 = PowerMockito.mock(GroupeTraits.class);
 	whenNew(GroupeTraits.class).withArguments(3, 4, 2, 2, 2).thenReturn(traitsRM3);
+	when(traitsRM3.figer()).thenReturn(traitsRM3);
 	when(traitsRM3.getTrait(Trait.PHYSIQUE)).thenReturn(3);
 	when(traitsRM3.getTrait(Trait.COORDINATION)).thenReturn(4);
 	when(traitsRM3.getTrait(Trait.MENTAL)).thenReturn(2);
@@ -112,6 +114,7 @@ public class UnitPersoTest
 	when(traitsRM3.getTrait(Trait.PRESENCE)).thenReturn(2);
 
 	whenNew(GroupeTraits.class).withArguments(2, 2, 2, 2, 2).thenReturn(traitsRM1);
+	when(traitsRM1.figer()).thenReturn(traitsRM1);
 	when(traitsRM1.getTrait(Trait.PHYSIQUE)).thenReturn(2);
 	when(traitsRM1.getTrait(Trait.COORDINATION)).thenReturn(2);
 	when(traitsRM1.getTrait(Trait.MENTAL)).thenReturn(2);
@@ -141,13 +144,17 @@ public class UnitPersoTest
 
 	//La référence mockée renvoie les listes de domaines et compétence prédéfinies
 	when(referenceMock.getListDomaines()).thenReturn(listDom);
+	when(referenceMock.getNbDomaines()).thenReturn(listDom.size());
 	when(referenceMock.getListComp(2)).thenReturn(listComp);
 	when(referenceMock.getListComp(3)).thenReturn(listComp);
 	when(referenceMock.getListComp(4)).thenReturn(listComp);
+	when(referenceMock.getNbComp(3)).thenReturn(listComp.size());
+	when(referenceMock.getNbComp(4)).thenReturn(listComp.size());
 
 	//on mocke un arbre de domaines
 	arbreMock = PowerMockito.mock(ArbreDomaines.class);
-	whenNew(ArbreDomaines.class).withNoArguments().thenReturn(arbreMock);
+	whenNew(ArbreDomaines.class).withAnyArguments().thenReturn(arbreMock);
+	when(arbreMock.figer()).thenReturn(arbreMock);//la copie sur écriture est vérifiée à part
 
 	//On crée les persos pour le test
 	persoRM1 = new Perso(1);
@@ -216,10 +223,11 @@ public class UnitPersoTest
 	//Cas nominal RM3 : vérification des appels d'ArbreDomaines et GroupeTraits
 	Perso persoTest = new Perso(3);
 
-	verify(arbreMock, times(2)).setRangDomaine(3, 4);
-	verify(arbreMock, times(2)).setRangComp(3, 2, 4);//la liste mock contient à ce moment 3 items
+	//le gabarit RM3 a été construit une seule fois, lors de la création de persoRM3, et est partagé par persoTest
+	verify(arbreMock, times(1)).setRangDomaine(3, 4);
+	verify(arbreMock, times(1)).setRangComp(3, 2, 4);//la liste mock contient à ce moment 3 items
 	verify(arbreMock, never()).setRangComp(3, 3, 4);//et donc on ne va pas jusqu'à un éventuel quatrième
-	verify(arbreMock, times(2)).setRangDomaine(4, 4);
+	verify(arbreMock, times(1)).setRangDomaine(4, 4);
 
 	assertEquals(3, persoTest.getTrait(PHYSIQUE));
 	assertEquals(4, persoTest.getTrait(COORDINATION));
@@ -228,6 +236,30 @@ public class UnitPersoTest
 	assertEquals(2, persoTest.getTrait(PRESENCE));
     }
 
+    @Test
+    public void testPartageGabarit()
+    {
+	//l'arbre figé du gabarit n'est recopié qu'à la première modification
+	ArbreDomaines arbreCopie = PowerMockito.mock(ArbreDomaines.class);
+	when(arbreMock.isFige()).thenReturn(true);
+	when(arbreMock.copier()).thenReturn(arbreCopie);
+	persoRM3.setRangComp(3, 1, 3);
+	persoRM3.setRangDomaine(3, 5);
+	verify(arbreMock, times(1)).copier();
+	verify(arbreCopie).setRangComp(3, 1, 3);
+	verify(arbreCopie).setRangDomaine(3, 5);
+	verify(arbreMock, never()).setRangComp(3, 1, 3);
+
+	//idem pour les traits figés, les jauges suivent la copie
+	GroupeTraits traitsCopie = PowerMockito.mock(GroupeTraits.class);
+	when(traitsRM3.isFige()).thenReturn(true);
+	when(traitsRM3.copier()).thenReturn(traitsCopie);
+	persoRM3.setTrait(Trait.MENTAL, 4);
+	verify(traitsCopie).setTrait(Trait.MENTAL, 4);
+	verify(traitsRM3, never()).setTrait(Trait.MENTAL, 4);
+	verify(jaugesRM3).setGroupeTraits(traitsCopie);
+    }
+
     @Test
     public void testAddSpecialite()
     {
@@ -254,11 +286,11 @@ public class UnitPersoTest
 	when(arbreMock.effectuerJetComp(2, 3, 6, 12, -1, 0, -10, true)).thenReturn(resultMock);
 
 	//On mocke le isSonne()
-	when(etatRM1.isSonne()).thenReturn(true);
+	when(jaugesRM1.isSonne()).thenReturn(true);
 
 	//On fait effectuer une attaque à la hache à un perso RM1 en prenant en compte le physique minimal de 2 et le malus à l'attaque de 1
 	RollGenerator.RollResult resultat = persoRM1.attaquerCaC(persoRM1.getActions().get(0), 12, armeMock);
-	verify(etatRM1).isSonne();
+	verify(jaugesRM1).isSonne();
 	Assert.assertEquals(0, resultat.getNbIncrements());
 	Assert.assertEquals(10, resultat.getScoreBrut());
 	Assert.assertEquals(false, resultat.isJetReussi());
@@ -279,7 +311,7 @@ public class UnitPersoTest
 	when(arbreMock.effectuerJetComp(4, 3, 0, 30, 0, 0, 0, false)).thenReturn(resultMock);
 
 	//On mocke le isSonne()
-	when(etatRM3.isSonne()).thenReturn(false);
+	when(jaugesRM3.isSonne()).thenReturn(false);
 
 	//On fait effectuer une attaque à mains nues à un perso RM3
 	RollGenerator.RollResult resultat = persoRM3.attaquerCaC(persoRM3.getActions().get(0), 30, null);
@@ -287,7 +319,7 @@ public class UnitPersoTest
 	Assert.assertEquals(3, resultat.getNbIncrements());
 	Assert.assertEquals(28, resultat.getScoreBrut());
 	Assert.assertEquals(true, resultat.isJetReussi());
-	verify(etatRM3).isSonne();
+	verify(jaugesRM3).isSonne();
 	verify(traitsRM3).getTrait(COORDINATION);
 	verify(arbreMock).effectuerJetComp(4, 3, 0, 30, 0, 0, 0, false);
     }
@@ -300,7 +332,7 @@ public class UnitPersoTest
 	ArmeDist.DistReport reportMock = PowerMockito.mock(ArmeDist.DistReport.class);
 
 	//On mocke le isSonne()
-	when(etatRM3.isSonne()).thenReturn(false);
+	when(jaugesRM3.isSonne()).thenReturn(false);
 
 	//On mocke un retour pour vérifier qu'il traverse correctement les couches private et on le fait retourner par arbreMock
 	RollGenerator.RollResult resultMock = PowerMockito.mock(RollGenerator.RollResult.class);
@@ -343,12 +375,12 @@ public class UnitPersoTest
     public void effectuerJetCompTest()
     {
 	//On mocke le isSonne() des deux jauges
-	when(etatRM3.isSonne()).thenReturn(true);
+	when(jaugesRM3.isSonne()).thenReturn(true);
 
 	new Perso(3).effectuerJetComp(Trait.PRESENCE, 1, 1, 49, -2, +1, +7);
 	verify(arbreMock).effectuerJetComp(2, 1, 1, 49, -2, +1, +7, true);
 	verify(traitsRM3).getTrait(PRESENCE);
-	verify(etatRM3).isSonne();
+	verify(jaugesRM3).isSonne();
     }
 
     @Test
@@ -411,7 +443,7 @@ public class UnitPersoTest
     {
 	persoRM3.effectuerJetTrait(MENTAL, 7);
 	verify(traitsRM3).effectuerJetTrait(MENTAL, 7, false);
-	when(etatRM3.isSonne()).thenReturn(true);
+	when(jaugesRM3.isSonne()).thenReturn(true);
 	persoRM3.effectuerJetTrait(MENTAL, 7);
 	verify(traitsRM3).effectuerJetTrait(MENTAL, 7, true);
     }
@@ -457,6 +489,11 @@ public class UnitPersoTest
 	whenNew(ArmeMainsNues.class).withArguments(traitsRM3).thenReturn(mainsNuesMock);
 	result = persoRM3.genererDegats(7, null);
 	assertEquals(result, degatsMock);
+
+	//les mains nues sont conservées d'une attaque à l'autre
+	result = persoRM3.genererDegats(7, null);
+	assertEquals(result, degatsMock);
+	verifyNew(ArmeMainsNues.class, times(1)).withArguments(traitsRM3);
     }
 
     @Test
@@ -481,7 +518,7 @@ public class UnitPersoTest
 	when(armureMock.getBonusND(3)).thenReturn(7);
 
 	//le perso de RM3 est sonné pour vérifier que la règle est bien appliquée
-	when(etatRM3.isSonne()).thenReturn(true);
+	when(jaugesRM3.isSonne()).thenReturn(true);
 
 	//sans adversaire supplémentaire
 	Assert.assertEquals(22, persoRM1.getDefense(3, 0, armureMock));
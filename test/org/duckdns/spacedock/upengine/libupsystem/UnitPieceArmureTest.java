@@ -19,6 +19,7 @@ package org.duckdns.spacedock.upengine.libupsystem;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import static org.junit.Assert.fail;
 import org.junit.runner.RunWith;
 import static org.mockito.Mockito.when;
 import org.powermock.api.mockito.PowerMockito;
@@ -86,6 +87,40 @@ public class UnitPieceArmureTest
 	when(referenceArmuresMock.getLblMateriauArmureAncienne(1)).thenReturn("lamelles ou maille");
 	when(referenceArmuresMock.getLocalisation(4)).thenReturn(2);
 	piece5 = new PieceArmure(4, 0, 1);
+
+	//type et matériau hors des bornes de la référence
+	when(referenceArmuresMock.getLblTypeArmure(9)).thenThrow(new IndexOutOfBoundsException());
+	when(referenceArmuresMock.getLblMateriauArmure(9)).thenThrow(new IndexOutOfBoundsException());
+	when(referenceArmuresMock.getLblMateriauArmureAncienne(9)).thenThrow(new IndexOutOfBoundsException());
+    }
+
+    @Test
+    public void testErreurConstruction()
+    {//le type et le matériau sont contrôlés à la construction et non à la première demande de libellé
+	try
+	{
+	    new PieceArmure(0, 9, 0);
+	    fail();
+	}
+	catch (IndexOutOfBoundsException e)
+	{
+	}
+	try
+	{
+	    new PieceArmure(0, 1, 9);
+	    fail();
+	}
+	catch (IndexOutOfBoundsException e)
+	{
+	}
+	try
+	{
+	    new PieceArmure(0, 0, 9);
+	    fail();
+	}
+	catch (IndexOutOfBoundsException e)
+	{
+	}
     }
 
     @Test
@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2017 ykonoclast
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.duckdns.spacedock.upengine.libupsystem;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.After;
+import org.junit.Assert;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ *
+ * @author ykonoclast
+ */
+public class UnitRegistreReferencesTest
+{
+
+    @After
+    public void tearDown()
+    {//les tests modifient l'instantané global
+	RegistreReferences.rechargerRessourcesEmbarquees();
+    }
+
+    @Test
+    public void testPublicationConcurrente() throws Exception
+    {//premier accès simultané depuis de nombreux threads : un seul chargement doit avoir lieu
+	ExecutorService executeur = Executors.newFixedThreadPool(8);
+	ArrayList<Callable<RegistreReferences.Instantane>> taches = new ArrayList<>();
+	for (int i = 0; i < 32; ++i)
+	{
+	    taches.add(RegistreReferences::getInstantane);
+	}
+	RegistreReferences.Instantane premier = null;
+	for (Future<RegistreReferences.Instantane> resultat : executeur.invokeAll(taches))
+	{
+	    if (premier == null)
+	    {
+		premier = resultat.get();
+	    }
+	    Assert.assertSame(premier, resultat.get());
+	}
+	executeur.shutdown();
+
+	Assert.assertSame(premier.getReferenceSysteme(), UPReferenceSysteme.getInstance());
+	Assert.assertSame(premier.getReferenceArmes(), UPReferenceArmes.getInstance());
+	Assert.assertSame(premier.getReferenceArmures(), UPReferenceArmures.getInstance());
+    }
+
+    @Test
+    public void testPrechauffer()
+    {
+	RegistreReferences.prechauffer();
+	Assert.assertEquals("mains nues", RegistreReferences.getInstantane().getReferenceArmes().getLblArme(50));
+    }
+
+    @Test
+    public void testRecharger() throws Exception
+    {
+	Path repertoire = Files.createTempDirectory("tables");
+	try
+	{
+	    RegistreReferences.Instantane ancien = RegistreReferences.getInstantane();
+
+	    //répertoire vide : les ressources embarquées sont reprises
+	    RegistreReferences.Instantane recharge = RegistreReferences.recharger(repertoire);
+	    Assert.assertNotSame(ancien, recharge);
+	    Assert.assertEquals("mains nues", recharge.getReferenceArmes().getLblArme(50));
+
+	    //table des armes modifiée par le MJ
+	    Path equipement = Files.createDirectories(repertoire.resolve("equipement"));
+	    try (InputStream flux = getClass().getResourceAsStream("/libupsystem/JSON/equipement/caracs_armes.json"))
+	    {
+		Files.copy(flux, equipement.resolve("caracs_armes.json"), StandardCopyOption.REPLACE_EXISTING);
+	    }
+	    String contenu = new String(Files.readAllBytes(equipement.resolve("caracs_armes.json")), StandardCharsets.UTF_8);
+	    Files.write(equipement.resolve("caracs_armes.json"), contenu.replace("mains nues", "poings").getBytes(StandardCharsets.UTF_8));
+
+	    recharge = RegistreReferences.rechargerAsync(repertoire).get();
+	    Assert.assertSame(recharge, RegistreReferences.getInstantane());
+	    Assert.assertEquals("poings", UPReferenceArmes.getInstance().getLblArme(50));
+	    Assert.assertEquals("mains nues", ancien.getReferenceArmes().getLblArme(50));//l'ancien instantané n'est pas affecté
+
+	    //fichier invalide : l'instantané courant est conservé
+	    Files.write(equipement.resolve("caracs_armes.json"), "{".getBytes(StandardCharsets.UTF_8));
+	    try
+	    {
+		RegistreReferences.recharger(repertoire);
+		fail();
+	    }
+	    catch (RuntimeException e)
+	    {
+	    }
+	    Assert.assertSame(recharge, RegistreReferences.getInstantane());
+
+	    try
+	    {
+		RegistreReferences.recharger(repertoire.resolve("inexistant"));
+		fail();
+	    }
+	    catch (IllegalArgumentException e)
+	    {
+		Assert.assertEquals("paramétre aberrant:répertoire:" + repertoire.resolve("inexistant"), e.getMessage());
+	    }
+	}
+	finally
+	{
+	    Files.deleteIfExists(repertoire.resolve("equipement").resolve("caracs_armes.json"));
+	    Files.deleteIfExists(repertoire.resolve("equipement"));
+	    Files.deleteIfExists(repertoire);
+	}
+    }
+
+    @Test
+    public void testSurveiller() throws Exception
+    {
+	Path repertoire = Files.createTempDirectory("tables");
+	Path equipement = Files.createDirectories(repertoire.resolve("equipement"));
+	RegistreReferences.Surveillance surveillance = RegistreReferences.surveiller(repertoire);
+	try
+	{
+	    RegistreReferences.Instantane ancien = RegistreReferences.getInstantane();
+	    String contenu;
+	    try (InputStream flux = getClass().getResourceAsStream("/libupsystem/JSON/equipement/caracs_armes.json"))
+	    {
+		Files.copy(flux, equipement.resolve("caracs_armes.json"));
+	    }
+	    contenu = new String(Files.readAllBytes(equipement.resolve("caracs_armes.json")), StandardCharsets.UTF_8);
+	    Files.write(equipement.resolve("caracs_armes.json"), contenu.replace("mains nues", "poings").getBytes(StandardCharsets.UTF_8));
+
+	    long limite = System.currentTimeMillis() + 30000;//certains systèmes de fichiers sont scrutés toutes les dix secondes
+	    while (!"poings".equals(UPReferenceArmes.getInstance().getLblArme(50)) && System.currentTimeMillis() < limite)
+	    {
+		Thread.sleep(50);
+	    }
+	    Assert.assertNotSame(ancien, RegistreReferences.getInstantane());
+	    Assert.assertEquals("poings", UPReferenceArmes.getInstance().getLblArme(50));
+	}
+	finally
+	{
+	    surveillance.close();
+	    Files.deleteIfExists(equipement.resolve("caracs_armes.json"));
+	    Files.deleteIfExists(equipement);
+	    Files.deleteIfExists(repertoire);
+	}
+    }
+}
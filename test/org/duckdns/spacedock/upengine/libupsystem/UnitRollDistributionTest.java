@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2017 ykonoclast
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.duckdns.spacedock.upengine.libupsystem;
+
+import org.junit.Assert;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author ykonoclast
+ */
+public class UnitRollDistributionTest
+{
+
+    private static final double PRECISION = 1e-9;
+
+    @Test
+    public void testDistributionsSimples()
+    {
+	RollDistribution calculateur = RollDistribution.getInstance();
+
+	//un dé non explosif : loi uniforme
+	RollDistribution.Distribution distribution = calculateur.getDistribution(1, 1, true);
+	Assert.assertEquals(10, distribution.getScoreMax());
+	for (int i = 1; i <= 10; ++i)
+	{
+	    Assert.assertEquals(0.1, distribution.getProbabilite(i), PRECISION);
+	}
+	Assert.assertEquals(5.5, distribution.getEsperance(), PRECISION);
+	Assert.assertEquals(1.0, distribution.getProbaAuMoins(0), PRECISION);
+	Assert.assertEquals(0.0, distribution.getProbaAuMoins(11), PRECISION);
+
+	//meilleur de deux dés : P(10) = 1 - 0.9²
+	distribution = calculateur.getDistribution(2, 1, true);
+	Assert.assertEquals(0.19, distribution.getProbabilite(10), PRECISION);
+	Assert.assertEquals(0.01, distribution.getProbabilite(1), PRECISION);
+
+	//inversion lancés/gardés comme pour le jet réel
+	Assert.assertSame(distribution, calculateur.getDistribution(1, 2, true));
+
+	//un dé explosif : 10 inatteignable, 11 avec une probabilité d'un centième
+	distribution = calculateur.getDistribution(1, 1, false);
+	Assert.assertEquals(0.0, distribution.getProbabilite(10), PRECISION);
+	Assert.assertEquals(0.01, distribution.getProbabilite(11), PRECISION);
+	Assert.assertEquals(0.1, distribution.getProbaAuMoins(10), PRECISION);
+	Assert.assertEquals(5.5 / 0.9, distribution.getEsperance(), 1e-6);
+
+	//aucun dé gardé : score nul certain
+	distribution = calculateur.getDistribution(0, 0, false);
+	Assert.assertEquals(1.0, distribution.getProbabilite(0), PRECISION);
+    }
+
+    @Test
+    public void testCoherenceJetsStatistiques()
+    {//mêmes seuils que IntegStatJetsTest pour un personnage RM3 : la majorité des jets réussit juste en dessous du seuil
+	RollDistribution calculateur = RollDistribution.getInstance();
+
+	Assert.assertTrue(calculateur.getProbaReussite(11, 2, 2, false, 0) > 0.5);
+	Assert.assertTrue(calculateur.getProbaReussite(12, 2, 2, false, 0) < 0.5);
+	Assert.assertTrue(calculateur.getProbaReussite(23, 4, 4, false, 0) > 0.5);
+	Assert.assertTrue(calculateur.getProbaReussite(24, 4, 4, false, 0) < 0.5);
+
+	//le modificateur se reporte sur le ND
+	Assert.assertEquals(calculateur.getProbaReussite(20, 4, 4, false, 0), calculateur.getProbaReussite(25, 4, 4, false, 5), PRECISION);
+
+	//avec un ND nul, l'espérance des incréments est le cinquième tronqué du score
+	double esperance = 0;
+	RollDistribution.Distribution distribution = calculateur.getDistribution(1, 1, true);
+	for (int i = 1; i <= 10; ++i)
+	{
+	    esperance += distribution.getProbabilite(i) * (i / 5);
+	}
+	Assert.assertEquals(esperance, calculateur.getEsperanceIncrements(0, 1, 1, true, 0), PRECISION);
+    }
+
+    @Test
+    public void testErreur()
+    {
+	RollDistribution calculateur = RollDistribution.getInstance();
+	try
+	{
+	    calculateur.getDistribution(-1, 2, true);
+	    fail();
+	}
+	catch (IllegalArgumentException e)
+	{
+	    Assert.assertEquals("paramétre aberrant:nombre de dés lancés:-1 nombre de dés gardés:2", e.getMessage());
+	}
+    }
+}
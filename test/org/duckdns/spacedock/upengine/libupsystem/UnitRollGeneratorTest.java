@@ -52,4 +52,109 @@ public class UnitRollGeneratorTest
 	    Assert.assertEquals("paramétre aberrant:nombre de dés lancés:2 nombre de dés gardés:-1", e.getMessage());
 	}
     }
+
+    @Test
+    public void testSourceReproductible()
+    {
+	RollGenerator generator = RollGenerator.getInstance();
+	SourceAleatoire[] sources =
+	{
+	    SourceAleatoire.scindable(42), SourceAleatoire.scindable(42), SourceAleatoire.xoroshiro(42), SourceAleatoire.xoroshiro(42)
+	};
+	int[][] sequences = new int[sources.length][100];
+	try
+	{
+	    for (int i = 0; i < sources.length; ++i)
+	    {
+		RollGenerator.lierSourceAuThread(sources[i]);
+		for (int j = 0; j < sequences[i].length; ++j)
+		{
+		    sequences[i][j] = generator.lancerDe(true);
+		    Assert.assertTrue(sequences[i][j] >= 1 && sequences[i][j] <= 10);
+		}
+	    }
+	}
+	finally
+	{
+	    RollGenerator.delierSourceDuThread();
+	}
+	//même graine, même algorithme : même séquence
+	Assert.assertArrayEquals(sequences[0], sequences[1]);
+	Assert.assertArrayEquals(sequences[2], sequences[3]);
+
+	//des flux scindés sont reproductibles eux aussi
+	SourceAleatoire fille1 = SourceAleatoire.xoroshiro(7).scinder();
+	SourceAleatoire fille2 = SourceAleatoire.xoroshiro(7).scinder();
+	for (int i = 0; i < 100; ++i)
+	{
+	    Assert.assertEquals(fille1.tirer(10), fille2.tirer(10));
+	}
+
+	try
+	{
+	    RollGenerator.lierSourceAuThread(null);
+	    fail();
+	}
+	catch (IllegalArgumentException e)
+	{
+	    Assert.assertEquals("paramétre aberrant:source aléatoire:null", e.getMessage());
+	}
+    }
+
+    @Test
+    public void testEffectuerJets()
+    {
+	RollGenerator generator = RollGenerator.getInstance();
+	int[] scores = new int[50];
+	boolean[] reussites = new boolean[50];
+	int[] increments = new int[50];
+	try
+	{
+	    RollGenerator.lierSourceAuThread(SourceAleatoire.scindable(3));
+	    int nbReussites = generator.effectuerJets(50, 15, 2, 3, false, 2, scores, reussites, increments);//lancés et gardés inversés
+	    int nbReussitesAttendu = 0;
+	    for (int i = 0; i < 50; ++i)
+	    {
+		Assert.assertTrue(scores[i] >= 4);//deux dés gardés et le modificateur
+		Assert.assertEquals(scores[i] >= 15, reussites[i]);
+		Assert.assertEquals(reussites[i] ? (scores[i] - 15) / 5 : 0, increments[i]);
+		if (reussites[i])
+		{
+		    ++nbReussitesAttendu;
+		}
+	    }
+	    Assert.assertEquals(nbReussitesAttendu, nbReussites);
+
+	    //même graine : mêmes scores que la version unitaire
+	    RollGenerator.lierSourceAuThread(SourceAleatoire.scindable(3));
+	    for (int i = 0; i < 50; ++i)
+	    {
+		Assert.assertEquals(scores[i], generator.effectuerJet(15, 3, 2, false, 2).getScoreBrut());
+	    }
+	}
+	finally
+	{
+	    RollGenerator.delierSourceDuThread();
+	}
+
+	try
+	{
+	    generator.effectuerJets(51, 15, 3, 2, false, 0, scores, null, null);
+	    fail();
+	}
+	catch (IllegalArgumentException e)
+	{
+	    Assert.assertEquals("paramétre aberrant:nombre de jets:51", e.getMessage());
+	}
+
+	try
+	{
+	    generator.effectuerJets(5, 15, -3, 2, false, 0, null, null, null);
+	    fail();
+	}
+	catch (IllegalArgumentException e)
+	{
+	    Assert.assertEquals("paramétre aberrant:nombre de dés lancés:-3 nombre de dés gardés:2", e.getMessage());
+	}
+    }
 }
@@ -50,6 +50,16 @@ public class UnitUPReferenceArmuresTest
 	Assert.assertEquals(12, m_reference.getRedDegats(32, 3, 2));//32/2=16
 	Assert.assertEquals(10, m_reference.getRedDegats(19, 3, 1));//arrondi 19/3 = 6
 	Assert.assertEquals(15, m_reference.getRedDegats(42, 0, 0));
+	Assert.assertEquals(15, m_reference.getRedDegats(5000, 4, 0));//au delà des tables précalculées
+	Assert.assertEquals(0, m_reference.getRedDegats(-3, 0, 0));
+	try
+	{
+	    m_reference.getRedDegats(12, 5, 0);//type d'arme inexistant
+	    Assert.fail();
+	}
+	catch (IndexOutOfBoundsException e)
+	{
+	}
     }
 
     @Test
@@ -67,6 +77,8 @@ public class UnitUPReferenceArmuresTest
 	Assert.assertEquals(7, m_reference.getBonusND(32, 3, 2));//32/2=16
 	Assert.assertEquals(5, m_reference.getBonusND(19, 3, 1));//arrondi 19/3 = 6
 	Assert.assertEquals(10, m_reference.getBonusND(52, 0, 0));
+	Assert.assertEquals(10, m_reference.getBonusND(5000, 4, 0));//au delà des tables précalculées
+	Assert.assertEquals(9, m_reference.getBonusND(152, 4, 0));//arrondi 152/5 = 30 : dernier palier avant saturation
     }
 
     @Test
@@ -126,6 +126,42 @@ public final class UnitUPReferenceSysTest
 	Assert.assertEquals(9, m_reference.getListDomaines().size());
     }
 
+    @Test
+    public void testListesMemorisees()
+    {
+	//les vues sont calculées une fois et partagées, non modifiables
+	Assert.assertSame(m_reference.getVueComp(3), m_reference.getVueComp(3));
+	Assert.assertSame(m_reference.getVueDomaines(), m_reference.getVueDomaines());
+	Assert.assertEquals(m_reference.getListComp(3), m_reference.getVueComp(3));
+	Assert.assertEquals(m_reference.getListDomaines(), m_reference.getVueDomaines());
+	Assert.assertEquals(m_reference.getVueComp(3).size(), m_reference.getNbComp(3));
+	Assert.assertEquals(7, m_reference.getNbComp(4));
+	Assert.assertEquals(4, m_reference.getNbComp(8));
+	Assert.assertEquals(9, m_reference.getNbDomaines());
+	try
+	{
+	    m_reference.getVueComp(0).add("bricolage");
+	    Assert.fail();
+	}
+	catch (UnsupportedOperationException e)
+	{
+	}
+	try
+	{
+	    m_reference.getVueDomaines().clear();
+	    Assert.fail();
+	}
+	catch (UnsupportedOperationException e)
+	{
+	}
+
+	//les listes publiques restent des copies modifiables sans effet sur la référence
+	m_reference.getListComp(0).add("bricolage");
+	m_reference.getListDomaines().clear();
+	Assert.assertFalse(m_reference.getVueComp(0).contains("bricolage"));
+	Assert.assertEquals(9, m_reference.getVueDomaines().size());
+    }
+
     @Test
     public void testLibelles()
     {
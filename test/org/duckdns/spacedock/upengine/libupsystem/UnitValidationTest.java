@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2017 ykonoclast
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.duckdns.spacedock.upengine.libupsystem;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author ykonoclast
+ */
+public class UnitValidationTest
+{
+
+    @Test
+    public void testLibellesMemorises()
+    {
+	String libelle = Validation.getLibelle("degats");
+	assertSame(libelle, Validation.getLibelle("degats"));
+    }
+
+    @Test
+    public void testMessages()
+    {
+	try
+	{
+	    Validation.paramAberrant("lances", -1, "gardes", 2);
+	    fail();
+	}
+	catch (IllegalArgumentException e)
+	{
+	    assertEquals("paramétre aberrant:" + Validation.getLibelle("lances") + ":-1 " + Validation.getLibelle("gardes") + ":2", e.getMessage());
+	}
+
+	try
+	{
+	    Validation.paramsAberrants("physique", 3, "volonte", -1, "traitmin", 2);
+	    fail();
+	}
+	catch (IllegalArgumentException e)
+	{
+	    assertEquals("paramétre aberrant:" + Validation.getLibelle("physique") + ":3 " + Validation.getLibelle("volonte") + ":-1 " + Validation.getLibelle("traitmin") + ":2", e.getMessage());
+	}
+
+	try
+	{
+	    Validation.mauvaiseMethode("trait", "PHYSIQUE");
+	    fail();
+	}
+	catch (IllegalStateException e)
+	{
+	    assertEquals("emploi de la mauvaise méthode dans ce contexte:trait:PHYSIQUE", e.getMessage());
+	}
+    }
+
+    @Test
+    public void testEntreesFiablesDesactiveesParDefaut()
+    {
+	assertFalse(Validation.isEntreesFiables());
+	try
+	{//le contrôle interne reste donc actif
+	    new CoupleJauges(3, 3, 2).recevoirDegatsControles(-1, new GroupeTraits(3, 3, 3, 3, 3));
+	    fail();
+	}
+	catch (IllegalArgumentException e)
+	{
+	    assertEquals("paramétre aberrant:" + Validation.getLibelle("degats") + ":-1", e.getMessage());
+	}
+    }
+
+    @Test
+    public void testControlesToujoursActifs()
+    {//ces points d'entrée ne sont pas couverts par le mode "entrées fiables"
+	try
+	{
+	    new CoupleJauges(3, 3, 2).recevoirDegats(-1, new GroupeTraits(3, 3, 3, 3, 3));
+	    fail();
+	}
+	catch (IllegalArgumentException e)
+	{
+	    assertEquals("paramétre aberrant:" + Validation.getLibelle("degats") + ":-1", e.getMessage());
+	}
+	try
+	{
+	    new CoupleJauges(3, 3, 2).getDistributionEncaissement(-1, new GroupeTraits(3, 3, 3, 3, 3));
+	    fail();
+	}
+	catch (IllegalArgumentException e)
+	{
+	    assertEquals("paramétre aberrant:" + Validation.getLibelle("degats") + ":-1", e.getMessage());
+	}
+    }
+}